@@ -0,0 +1,39 @@
+package com.springminio.app.aop;
+
+import com.springminio.app.limit.BulkheadInterceptor;
+import com.springminio.app.limit.ConcurrencyLimits;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Times the service calls a request makes into the permit of its bulkhead, so the adaptive limits
+ * learn from storage latency rather than from the whole exchange, where sending or receiving the
+ * body dominates. Async calls are timed until their future completes. Calls made outside a
+ * request holding a permit, such as from a streamed response body, are left untimed.
+ */
+@Aspect
+@Component
+public class BulkheadLatencyAspect {
+
+    @Around(value="execution(public * com.springminio.app.service.MinioService+.*(..))"
+            + " || execution(public * com.springminio.app.service.AsyncMinioService+.*(..))"
+            + " || execution(public * com.springminio.app.service.UploadSessionService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        ConcurrencyLimits.Permit permit = BulkheadInterceptor.currentPermit().orElse(null);
+        if (permit == null) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        Object result = joinPoint.proceed();
+        if (result instanceof CompletableFuture<?> future) {
+            future.whenComplete((value, e) -> permit.record(System.nanoTime() - start));
+        } else {
+            permit.record(System.nanoTime() - start);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.springminio.app.aop;
+
+import com.springminio.app.config.MinioConfig;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of blocking MinioUtil calls in flight at {@code minio.max-concurrent-calls},
+ * so a large number of (virtual) request threads cannot overwhelm the storage cluster.
+ * A call returning an object stream keeps its permit until the stream is closed.
+ * <p>
+ * {@code streamObjects} is left out: its listing stream is consumed while the caller opens the objects it
+ * lists (a ZIP of a prefix), so holding a permit until it is closed could leave every permit with a listing
+ * waiting for another one. Its lazily fetched pages are not limited.
+ */
+@Aspect
+@Component
+public class MinioConcurrencyAspect {
+
+    private final Semaphore permits;
+
+    public MinioConcurrencyAspect(MinioConfig minioConfig) {
+        this.permits = minioConfig.getMaxConcurrentCalls() > 0
+                ? new Semaphore(minioConfig.getMaxConcurrentCalls(), true)
+                : null;
+    }
+
+    @Around(value="execution(public * com.springminio.app.util.MinioUtil.*(..))"
+            + " && !execution(* com.springminio.app.util.MinioUtil.streamObjects(..))")
+    public Object limitConcurrentCalls(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (permits == null) {
+            return joinPoint.proceed();
+        }
+
+        permits.acquire();
+        boolean streaming = false;
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Optional<?> optional && optional.orElse(null) instanceof InputStream stream) {
+                streaming = true;
+                return Optional.of(new PermitReleasingInputStream(stream, permits));
+            }
+            return result;
+        } finally {
+            if (!streaming) {
+                permits.release();
+            }
+        }
+    }
+
+    private static class PermitReleasingInputStream extends FilterInputStream {
+
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingInputStream(InputStream in, Semaphore permits) {
+            super(in);
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.springminio.app.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of every public MinioService, AsyncMinioService and MinioUtil call.
+ * Each call is timed into {@code minio.operation} (with a percentile histogram) tagged by component,
+ * operation and outcome, and counted in {@code minio.operation.active} while it runs; async calls until
+ * their future completes. MinioUtil reports most failures as a result rather than an exception, so the
+ * outcome is also read from it: a {@code null} result or a {@code false} one is a failure, except for the
+ * existence checks where {@code false} is an empty answer like an empty {@link Optional}. Buckets are left out of the tags: they come from request paths, and every new
+ * name would add a whole histogram. The bytes themselves are counted on the transport, by
+ * {@link com.springminio.app.config.MinioTransferMetricsInterceptor}.
+ */
+@Aspect
+@Component
+public class MinioMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MinioMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around(value="execution(public * com.springminio.app.util.MinioUtil.*(..))")
+    public Object measureUtil(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, "util");
+    }
+
+    @Around(value="execution(public * com.springminio.app.service.MinioService+.*(..))")
+    public Object measureService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, "service");
+    }
+
+    @Around(value="execution(public * com.springminio.app.service.AsyncMinioService+.*(..))")
+    public Object measureAsync(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure(joinPoint, "async");
+    }
+
+    private Object measure(ProceedingJoinPoint joinPoint, String component) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        boolean returnsValue = joinPoint.getSignature() instanceof MethodSignature signature
+                && signature.getReturnType() != void.class;
+        AtomicInteger inFlight = active.computeIfAbsent(component + "." + operation, key ->
+                meterRegistry.gauge("minio.operation.active",
+                        Tags.of("component", component, "operation", operation), new AtomicInteger()));
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(component, operation, "error", start, inFlight);
+            throw e;
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            // A future completing with null is a Void result, not a failure
+            future.whenComplete((value, e) -> record(component, operation, outcome(operation, value, false, e), start,
+                    inFlight));
+        } else {
+            record(component, operation, outcome(operation, result, returnsValue, null), start, inFlight);
+        }
+        return result;
+    }
+
+    private void record(String component, String operation, String outcome, long start, AtomicInteger inFlight) {
+        inFlight.decrementAndGet();
+        // Looked up once per tag combination, not built and registered again on every call
+        timers.computeIfAbsent(component + "." + operation + "." + outcome, key -> Timer.builder("minio.operation")
+                        .description("Duração das operações de armazenamento")
+                        .tags("component", component, "operation", operation, "outcome", outcome)
+                        .publishPercentileHistogram()
+                        // Large uploads run for minutes, keep them inside the histogram range
+                        .maximumExpectedValue(Duration.ofMinutes(10))
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(String operation, Object result, boolean returnsValue, Throwable error) {
+        if (error != null) {
+            return "error";
+        }
+        if (result == null) {
+            return returnsValue ? "failure" : "success";
+        }
+        if (result instanceof Boolean success && !success) {
+            return operation.endsWith("Exists") ? "empty" : "failure";
+        }
+        return result instanceof Optional<?> optional && optional.isEmpty() ? "empty" : "success";
+    }
+}
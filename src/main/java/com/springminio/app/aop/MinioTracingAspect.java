@@ -0,0 +1,100 @@
+package com.springminio.app.aop;
+
+import com.springminio.app.config.MinioConfig;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled tracing of MinioService and MinioUtil calls. A top-level call is sampled at
+ * {@code minio.tracing.sample-rate} and the calls it makes on the same thread follow its decision,
+ * so a sampled request is logged as a whole: one span per call, with trace, span and parent ids and
+ * the duration. Unsampled calls only read the clock and are logged when slower than
+ * {@code minio.tracing.slow-threshold}. The aspect is not registered unless {@code minio.tracing.enabled} is set.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "minio.tracing", name = "enabled", havingValue = "true")
+public class MinioTracingAspect {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioTracingAspect.class);
+
+    // Marks a thread inside an unsampled top-level call, so the calls it makes are not sampled on their own
+    private static final Span UNSAMPLED = new Span(0, 0, 0);
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public MinioTracingAspect(MinioConfig minioConfig) {
+        this.sampleRate = minioConfig.getTracing().getSampleRate();
+        this.slowThresholdNanos = minioConfig.getTracing().getSlowThreshold().toNanos();
+    }
+
+    @Around(value="execution(public * com.springminio.app.service.MinioService+.*(..))"
+            + " || execution(public * com.springminio.app.util.MinioUtil.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        Span parent = CURRENT.get();
+        boolean sampled = parent == null
+                ? sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate
+                : parent != UNSAMPLED;
+        return sampled ? traceSampled(joinPoint, parent) : traceUnsampled(joinPoint, parent);
+    }
+
+    private Object traceSampled(ProceedingJoinPoint joinPoint, Span parent) throws Throwable {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Span span = parent == null
+                ? new Span(random.nextLong(), random.nextLong(), 0)
+                : new Span(parent.traceId(), random.nextLong(), parent.spanId());
+        CURRENT.set(span);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            return result;
+        } finally {
+            restore(parent);
+            LOGGER.info("MinioTracingAspect | span | trace : {}, span : {}, parent : {}, operation : {}, durationMs : {}, outcome : {}",
+                    Long.toHexString(span.traceId()), Long.toHexString(span.spanId()), Long.toHexString(span.parentId()),
+                    joinPoint.getSignature().toShortString(), millis(System.nanoTime() - start), outcome);
+        }
+    }
+
+    // Only the clock is read here, nothing is allocated unless the call turns out to be slow
+    private Object traceUnsampled(ProceedingJoinPoint joinPoint, Span parent) throws Throwable {
+        if (parent == null) {
+            CURRENT.set(UNSAMPLED);
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            restore(parent);
+            long elapsed = System.nanoTime() - start;
+            if (slowThresholdNanos > 0 && elapsed > slowThresholdNanos) {
+                LOGGER.warn("MinioTracingAspect | slow | operation : {}, durationMs : {}",
+                        joinPoint.getSignature().toShortString(), millis(elapsed));
+            }
+        }
+    }
+
+    // Null stands for no parent; unlike remove, setting it keeps the thread's entry and allocates nothing
+    private static void restore(Span parent) {
+        CURRENT.set(parent);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record Span(long traceId, long spanId, long parentId) {
+    }
+}
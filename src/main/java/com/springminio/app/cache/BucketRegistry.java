@@ -0,0 +1,61 @@
+package com.springminio.app.cache;
+
+import io.minio.MinioClient;
+import io.minio.messages.Bucket;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory set of the buckets known to exist, so hot paths such as uploads do not ask MinIO
+ * on every call. It is filled from listBuckets at startup, kept up to date by the bucket
+ * operations of MinioUtil and reloaded every {@code minio.buckets.refresh-interval}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BucketRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BucketRegistry.class);
+
+    private final MinioClient minioClient;
+
+    private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+
+
+    public boolean contains(String bucketName) {
+        return buckets.contains(bucketName);
+    }
+
+    public void register(String bucketName) {
+        buckets.add(bucketName);
+    }
+
+    public void unregister(String bucketName) {
+        buckets.remove(bucketName);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "#{@minioConfig.buckets.refreshInterval.toMillis()}",
+            initialDelayString = "#{@minioConfig.buckets.refreshInterval.toMillis()}")
+    public void refresh() {
+        try {
+            Set<String> current = minioClient.listBuckets().stream()
+                    .map(Bucket::name)
+                    .collect(Collectors.toSet());
+            buckets.addAll(current);
+            buckets.retainAll(current);
+            LOGGER.info("BucketRegistry | refresh | buckets : {}", buckets.size());
+        } catch (Exception e) {
+            // Unknown buckets are still checked remotely, so a failed refresh only costs round trips
+            LOGGER.warn("BucketRegistry | refresh | falha ao listar buckets : {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.springminio.app.cache;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.util.MinioUtil;
+import io.minio.StatObjectResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Index of stored content by SHA-256 digest, used to skip uploads of bytes that are already in a bucket.
+ * Deduplicated objects are named after their digest, so a miss here is confirmed against MinIO and the
+ * index can be rebuilt lazily after a restart.
+ * <p>
+ * Every upload of deduplicated content leaves an empty marker in {@code minio.dedup.reference-bucket}
+ * under {@code <bucket>/<object>/}, and deleting the object removes one marker: the content itself is
+ * removed with its last reference, so a delete never takes the bytes away from another upload.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentIndex.class);
+
+    // Length of a hex encoded SHA-256 digest, the prefix of every deduplicated object name
+    public static final int DIGEST_LENGTH = 64;
+
+    // Uploads run under these locks, so enough of them that unrelated content rarely waits on another upload
+    private static final int LOCK_STRIPES = 1024;
+
+    private final MinioConfig minioConfig;
+    private final MinioUtil minioUtil;
+
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+
+    // Retain and release of the same content are serialized, so a delete cannot race an upload that reuses it
+    private final List<ReentrantLock> locks = IntStream.range(0, LOCK_STRIPES).mapToObj(i -> new ReentrantLock()).toList();
+
+
+    public boolean isEnabled() {
+        return minioConfig.getDedup().isEnabled();
+    }
+
+    // Object already holding the content with this digest
+    public Optional<String> find(String bucketName, String digest) {
+        return Optional.ofNullable(objects.get(bucketName + "/" + digest));
+    }
+
+    public void register(String bucketName, String digest, String objectName) {
+        // Entries are only hints, so when full the index simply stops growing
+        if (objects.size() < minioConfig.getDedup().getMaxEntries()) {
+            objects.put(bucketName + "/" + digest, objectName);
+        }
+    }
+
+    // Forget a deleted object so the next upload of its content writes it again
+    public void evict(String bucketName, String objectName) {
+        if (isContentName(objectName)) {
+            objects.remove(bucketName + "/" + objectName.substring(0, DIGEST_LENGTH), objectName);
+        }
+    }
+
+    /**
+     * Add a reference for one upload of the content. Returns the object already holding it, checked with
+     * {@code stored} when the index does not know it, or empty once {@code upload} has stored it as {@code objectName}.
+     * The upload runs under the lock of the digest, so a concurrent upload of the same bytes waits for it instead
+     * of being pointed at an object that is not there yet, and the reference is only written once the content is.
+     */
+    public Optional<String> retain(String bucketName, String digest, String objectName,
+                                   Predicate<StatObjectResponse> stored, ContentUpload upload) throws Exception {
+        ReentrantLock lock = lock(bucketName, digest);
+        lock.lock();
+        try {
+            Optional<String> existing = find(bucketName, digest)
+                    .or(() -> minioUtil.findObject(bucketName, objectName)
+                            .filter(stored)
+                            .map(StatObjectResponse::object));
+            if (existing.isEmpty()) {
+                upload.upload();
+            }
+            String target = existing.orElse(objectName);
+
+            try {
+                addReference(bucketName, target);
+            } catch (Exception e) {
+                // Without its reference the content just stored would be removed by the next delete of another one
+                if (existing.isEmpty()) {
+                    minioUtil.removeObject(bucketName, objectName);
+                }
+                throw new IllegalStateException("Falha ao registrar referência do conteúdo " + objectName, e);
+            }
+            register(bucketName, digest, target);
+            return existing;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop one reference to a deduplicated object, removing the object with the last one. Objects that are
+     * not named after a digest, and those stored before references were kept, are removed right away.
+     * Returns whether the reference was dropped, the same as a delete of a plain object.
+     */
+    public boolean release(String bucketName, String objectName) {
+        if (!isContentName(objectName)) {
+            return minioUtil.removeObject(bucketName, objectName);
+        }
+        ReentrantLock lock = lock(bucketName, objectName.substring(0, DIGEST_LENGTH));
+        lock.lock();
+        try {
+            String referenceBucket = minioConfig.getDedup().getReferenceBucket();
+            List<ObjectEntry> references = minioUtil.bucketExists(referenceBucket)
+                    ? minioUtil.listObjects(referenceBucket, referencePrefix(bucketName, objectName), null, 2, null).getObjects()
+                    : List.of();
+            if (!references.isEmpty() && !minioUtil.removeObject(referenceBucket, references.get(0).getName())) {
+                return false;
+            }
+            if (references.size() > 1) {
+                LOGGER.debug("ContentIndex | release | {} ainda referenciado", objectName);
+                return true;
+            }
+            evict(bucketName, objectName);
+            return minioUtil.removeObject(bucketName, objectName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Names that deletes must go through release for, also once deduplication has been turned off
+    public boolean isContentName(String objectName) {
+        return objectName != null && objectName.length() >= DIGEST_LENGTH
+                && objectName.chars().limit(DIGEST_LENGTH).allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    private void addReference(String bucketName, String objectName) throws Exception {
+        String referenceBucket = minioConfig.getDedup().getReferenceBucket();
+        if (!minioUtil.bucketExists(referenceBucket)) {
+            minioUtil.makeBucket(referenceBucket);
+        }
+        minioUtil.uploadObject(referenceBucket, new ByteArrayInputStream(new byte[0]), 0,
+                referencePrefix(bucketName, objectName) + UUID.randomUUID(), "application/octet-stream");
+    }
+
+    private ReentrantLock lock(String bucketName, String digest) {
+        return locks.get(Math.floorMod((bucketName + "/" + digest).hashCode(), LOCK_STRIPES));
+    }
+
+    private static String referencePrefix(String bucketName, String objectName) {
+        return bucketName + "/" + objectName + "/";
+    }
+
+    // Stores the content when no object holds it yet
+    @FunctionalInterface
+    public interface ContentUpload {
+        void upload() throws Exception;
+    }
+}
@@ -0,0 +1,99 @@
+package com.springminio.app.cache;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.util.MinioUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Resized image variants, stored in their own bucket ({@code minio.image.bucket}) so they never show
+ * up in the listings, URLs and archives of the bucket of their source. A variant is named
+ * {@code <bucket>/<object>/<etag>/w<width>.<format>} after its source, and all the variants of an
+ * object are removed with it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageVariantIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantIndex.class);
+
+    private static final int MAX_KNOWN_SOURCES = 100000;
+
+    private final MinioConfig minioConfig;
+    private final MinioUtil minioUtil;
+
+    // Variants known to be stored, by the key prefix of their source, a shortcut around the stat call
+    private final Map<String, Set<String>> variants = new ConcurrentHashMap<>();
+
+
+    public String getBucketName() {
+        return minioConfig.getImage().getBucket();
+    }
+
+    // The source ETag is part of the key, so a replaced original never serves a stale variant
+    public static String variantName(String bucketName, String objectName, String etag, int width, String format) {
+        return sourcePrefix(bucketName, objectName) + etag + "/w" + width + "." + format;
+    }
+
+    public boolean exists(String bucketName, String objectName, String variantName) {
+        Set<String> known = variants.get(sourcePrefix(bucketName, objectName));
+        if (known != null && known.contains(variantName)) {
+            return true;
+        }
+        if (minioUtil.objectExists(getBucketName(), variantName)) {
+            remember(bucketName, objectName, variantName);
+            return true;
+        }
+        return false;
+    }
+
+    public void store(String bucketName, String objectName, String variantName, byte[] content, String contentType)
+            throws Exception {
+        if (!minioUtil.bucketExists(getBucketName())) {
+            minioUtil.makeBucket(getBucketName());
+        }
+        minioUtil.uploadObject(getBucketName(), new ByteArrayInputStream(content), content.length, variantName, contentType);
+        remember(bucketName, objectName, variantName);
+    }
+
+    // Remove every variant of a deleted object; a failure is only logged, the object itself is already gone
+    // Called from tasks on the async pool, so the variants are deleted inline rather than on that pool again
+    public void removeAll(String bucketName, String objectName) {
+        String prefix = sourcePrefix(bucketName, objectName);
+        variants.remove(prefix);
+        if (!minioUtil.bucketExists(getBucketName())) {
+            return;
+        }
+        try (Stream<ObjectEntry> entries = minioUtil.streamObjects(getBucketName(), prefix, null)) {
+            List<String> names = entries.map(ObjectEntry::getName).toList();
+            if (!names.isEmpty()) {
+                LOGGER.debug("ImageVariantIndex | removeAll | {} variantes de {}", names.size(), prefix);
+                minioUtil.removeObjectInline(getBucketName(), names);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Erro ao remover variantes da imagem {}: ", prefix, e);
+        }
+    }
+
+    private void remember(String bucketName, String objectName, String variantName) {
+        // When full the index simply stops growing, a miss only costs a stat call
+        if (variants.size() < MAX_KNOWN_SOURCES) {
+            variants.computeIfAbsent(sourcePrefix(bucketName, objectName), key -> ConcurrentHashMap.newKeySet())
+                    .add(variantName);
+        }
+    }
+
+    private static String sourcePrefix(String bucketName, String objectName) {
+        return bucketName + "/" + objectName + "/";
+    }
+}
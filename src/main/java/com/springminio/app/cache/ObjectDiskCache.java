@@ -0,0 +1,209 @@
+package com.springminio.app.cache;
+
+import com.springminio.app.config.MinioConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of hot objects on local disk, bounded by {@code minio.cache.max-bytes}.
+ * Entries are keyed by bucket and object and validated against the current ETag. Eviction and
+ * admission are frequency based: accesses are counted for every object (halved periodically so
+ * the counts follow the current workload), and a new object only displaces entries read less often.
+ */
+@Component
+@RequiredArgsConstructor
+public class ObjectDiskCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectDiskCache.class);
+
+    private final MinioConfig minioConfig;
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> frequencies = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> loading = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong accesses = new AtomicLong();
+
+    private Path directory;
+
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        // Entries are not persisted, so files left by a previous run are dropped
+        directory = Path.of(minioConfig.getCache().getDirectory());
+        FileSystemUtils.deleteRecursively(directory);
+        Files.createDirectories(directory);
+        LOGGER.info("ObjectDiskCache | init | directory : {}, maxBytes : {}", directory, minioConfig.getCache().getMaxBytes());
+    }
+
+    public boolean isEnabled() {
+        return minioConfig.getCache().isEnabled();
+    }
+
+    // Local copy of the object for this ETag, loaded through the loader when it is worth caching
+    public Optional<Path> get(String bucketName, String objectName, String etag, long size,
+                              Supplier<Optional<InputStream>> loader) {
+        if (!isEnabled() || etag == null) {
+            return Optional.empty();
+        }
+
+        String key = bucketName + "/" + objectName;
+        int frequency = recordAccess(key);
+
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.etag().equals(etag) && Files.exists(entry.path())) {
+                return Optional.of(entry.path());
+            }
+            remove(key, entry);
+        }
+
+        MinioConfig.Cache cache = minioConfig.getCache();
+        if (size > cache.getMaxObjectSize() || size > cache.getMaxBytes() || frequency < cache.getMinHits()) {
+            return Optional.empty();
+        }
+        // Only one request loads a given object, the others keep streaming from MinIO meanwhile
+        if (loading.putIfAbsent(key, Boolean.TRUE) != null) {
+            return Optional.empty();
+        }
+        try {
+            if (!makeRoom(size, frequency)) {
+                return Optional.empty();
+            }
+            return load(key, etag, size, loader);
+        } finally {
+            loading.remove(key);
+        }
+    }
+
+    // Local copy of the object for this ETag when it is cached already; never loads it nor counts as a read
+    public Optional<Path> find(String bucketName, String objectName, String etag) {
+        if (!isEnabled() || etag == null) {
+            return Optional.empty();
+        }
+        CacheEntry entry = entries.get(bucketName + "/" + objectName);
+        return entry != null && entry.etag().equals(etag) && Files.exists(entry.path())
+                ? Optional.of(entry.path())
+                : Optional.empty();
+    }
+
+    // Drop an object, e.g. after it was deleted through the service
+    public void evict(String bucketName, String objectName) {
+        if (!isEnabled()) {
+            return;
+        }
+        String key = bucketName + "/" + objectName;
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            remove(key, entry);
+        }
+    }
+
+    private Optional<Path> load(String key, String etag, long size, Supplier<Optional<InputStream>> loader) {
+        Optional<InputStream> source = loader.get();
+        if (source.isEmpty()) {
+            usedBytes.addAndGet(-size);
+            return Optional.empty();
+        }
+
+        Path target = directory.resolve(UUID.randomUUID().toString());
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (InputStream in = source.get()) {
+            long copied = Files.copy(in, temporary);
+            if (copied != size) {
+                throw new IOException("Tamanho inesperado: " + copied + " de " + size);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Erro ao gravar objeto no cache: ", e);
+            usedBytes.addAndGet(-size);
+            deleteQuietly(temporary);
+            return Optional.empty();
+        }
+
+        CacheEntry previous = entries.put(key, new CacheEntry(target, etag, size));
+        if (previous != null) {
+            usedBytes.addAndGet(-previous.size());
+            deleteQuietly(previous.path());
+        }
+        LOGGER.info("ObjectDiskCache | load | key : {}, usedBytes : {}", key, usedBytes.get());
+        return Optional.of(target);
+    }
+
+    // Reserve space for a candidate, evicting entries read less often than it; false when it should not be admitted
+    private synchronized boolean makeRoom(long size, int frequency) {
+        long maxBytes = minioConfig.getCache().getMaxBytes();
+        while (usedBytes.get() + size > maxBytes) {
+            Optional<Map.Entry<String, CacheEntry>> victim = entries.entrySet().stream()
+                    .min(Comparator.comparingInt(e -> frequencyOf(e.getKey())));
+            if (victim.isEmpty() || frequencyOf(victim.get().getKey()) >= frequency) {
+                return false;
+            }
+            remove(victim.get().getKey(), victim.get().getValue());
+        }
+        usedBytes.addAndGet(size);
+        return true;
+    }
+
+    private void remove(String key, CacheEntry entry) {
+        if (entries.remove(key, entry)) {
+            usedBytes.addAndGet(-entry.size());
+            // Readers that already opened the file keep reading it; the space is freed once they close it
+            deleteQuietly(entry.path());
+        }
+    }
+
+    private int recordAccess(String key) {
+        int frequency = frequencies.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        if (accesses.incrementAndGet() % minioConfig.getCache().getAgingInterval() == 0) {
+            age();
+        }
+        return frequency;
+    }
+
+    // Halve every count so objects that used to be popular fade out
+    private void age() {
+        frequencies.forEach((key, count) -> {
+            if (count.updateAndGet(value -> value / 2) == 0 && !entries.containsKey(key)) {
+                frequencies.remove(key, count);
+            }
+        });
+    }
+
+    private int frequencyOf(String key) {
+        AtomicInteger count = frequencies.get(key);
+        return count != null ? count.get() : 0;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("ObjectDiskCache | deleteQuietly | {} : {}", path, e.getMessage());
+        }
+    }
+
+    private record CacheEntry(Path path, String etag, long size) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.springminio.app.cache;
+
+import com.springminio.app.config.MinioConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Reuses a presigned URL until it comes within {@code minio.presign.refresh-before} of its expiry,
+ * so repeated requests for the same object do not sign a new URL every time.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresignedUrlCache {
+
+    private final MinioConfig minioConfig;
+
+    private final Map<String, SignedUrl> urls = new ConcurrentHashMap<>();
+
+
+    // Cached URL of the object, signed through the signer when missing or about to expire
+    public String get(String bucketName, String objectName, Supplier<String> signer) {
+        String key = bucketName + "/" + objectName;
+        Instant now = Instant.now();
+
+        SignedUrl cached = urls.get(key);
+        if (cached != null && now.isBefore(cached.refreshAt())) {
+            return cached.url();
+        }
+
+        Instant signedAt = Instant.now();
+        String url = signer.get();
+        if (url == null || url.isEmpty()) {
+            return url;
+        }
+
+        MinioConfig.Presign presign = minioConfig.getPresign();
+        if (urls.size() >= presign.getMaxEntries()) {
+            urls.values().removeIf(signed -> !now.isBefore(signed.refreshAt()));
+        }
+        if (urls.size() < presign.getMaxEntries()) {
+            urls.put(key, new SignedUrl(url, signedAt.plus(presign.getExpiry()).minus(presign.getRefreshBefore())));
+        }
+        return url;
+    }
+
+    // Forget the URL of an object, e.g. after it was deleted
+    public void evict(String bucketName, String objectName) {
+        urls.remove(bucketName + "/" + objectName);
+    }
+
+    private record SignedUrl(String url, Instant refreshAt) {
+    }
+}
@@ -1,10 +1,35 @@
 package com.springminio.app.config;
 
+import com.springminio.app.limit.BulkheadType;
+import com.springminio.app.util.MinioMultipartClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import io.minio.http.HttpUtils;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Data
 @Configuration
@@ -26,6 +51,9 @@ public class MinioConfig {
     /** * //" If it is true, It uses https instead of http, The default value is true" */
     private boolean secure;
 
+    /** *  Region of every bucket, skips the location lookup per bucket; blank to look it up  */
+    private String region;
+
     /** * //" Default bucket " */
     private String bucketName;
 
@@ -35,13 +63,416 @@ public class MinioConfig {
     /** *  Maximum size of other files  */
     private long fileSize;
 
+    /** *  Part size used when streaming uploads to MinIO, bounds the heap held per upload  */
+    private long partSize;
+
+    /** *  Maximum number of blocking MinIO calls running at the same time, 0 for no limit  */
+    private int maxConcurrentCalls;
+
+    /** *  Nodes of a MinIO cluster that requests are balanced over  */
+    private Pool pool = new Pool();
+
+    /** *  Connection pool and timeouts of the HTTP transport  */
+    private Transport transport = new Transport();
+
+    /** *  In-memory registry of existing buckets  */
+    private Buckets buckets = new Buckets();
+
+    /** *  Parallel multipart upload of large objects  */
+    private Multipart multipart = new Multipart();
+
+    /** *  Non-blocking service backed by MinioAsyncClient  */
+    private Async async = new Async();
+
+    /** *  Local disk cache of hot objects in front of getObject  */
+    private Cache cache = new Cache();
+
+    /** *  Presigned download URLs  */
+    private Presign presign = new Presign();
+
+    /** *  Bulk deletion of objects  */
+    private Delete delete = new Delete();
+
+    /** *  Bulk upload of files  */
+    private Upload upload = new Upload();
+
+    /** *  ZIP download of several objects  */
+    private Zip zip = new Zip();
+
+    /** *  Content-addressed deduplication of uploads  */
+    private Dedup dedup = new Dedup();
+
+    /** *  Transparent compression of stored objects  */
+    private Compression compression = new Compression();
+
+    /** *  Resized image variants  */
+    private Image image = new Image();
+
+    /** *  Hedged getObject and statObject requests  */
+    private Hedge hedge = new Hedge();
+
+    /** *  Sampled tracing of storage calls  */
+    private Tracing tracing = new Tracing();
+
+    /** *  Resumable uploads sent in chunks over several requests  */
+    private Resumable resumable = new Resumable();
+
+    /** *  Adaptive concurrency limits of the HTTP operations, one per bulkhead  */
+    private Limits limits = new Limits();
+
+    @Bean
+    public MinioEndpointPool minioEndpointPool(MeterRegistry meterRegistry) {
+        // Probes get their own short-lived client so a hung node cannot hold a health check for minutes
+        OkHttpClient healthClient = new OkHttpClient.Builder()
+                .connectTimeout(pool.getHealthCheckTimeout())
+                .readTimeout(pool.getHealthCheckTimeout())
+                .retryOnConnectionFailure(false)
+                .build();
+        return new MinioEndpointPool(pool.getEndpoints(), pool.getEjectAfterFailures(), healthClient, meterRegistry);
+    }
+
+    @Bean
+    public OkHttpClient minioHttpClient(MeterRegistry meterRegistry, MinioEndpointPool minioEndpointPool) {
+        // Default minio transport, with the dispatcher widened so concurrent calls are not queued per host
+        int maxRequests = Math.max(Math.max(multipart.getConcurrency(), async.getMaxInFlight()), maxConcurrentCalls);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(dispatcher.getMaxRequests(), maxRequests));
+        dispatcher.setMaxRequestsPerHost(Math.max(dispatcher.getMaxRequestsPerHost(), maxRequests));
+        // OkHttp keeps one pool for all hosts, so it is sized for every node of the cluster
+        int endpoints = Math.max(1, pool.getEndpoints().size());
+        return HttpUtils.newDefaultHttpClient(transport.getConnectTimeout().toMillis(),
+                        transport.getWriteTimeout().toMillis(), transport.getReadTimeout().toMillis())
+                .newBuilder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(transport.getMaxIdleConnections() * endpoints,
+                        transport.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .addInterceptor(new MinioErrorMetricsInterceptor(meterRegistry))
+                .addInterceptor(minioEndpointPool)
+                .addNetworkInterceptor(minioEndpointPool.connectionTracker())
+                .addNetworkInterceptor(new MinioTransferMetricsInterceptor(meterRegistry))
+                .build();
+    }
+
     @Bean
-    public MinioClient minioClient() {
-        MinioClient minioClient =
+    public MinioClient minioClient(OkHttpClient minioHttpClient) {
+        MinioClient.Builder builder =
                 MinioClient.builder()
                         .credentials(accessKey, secretKey)
                         .endpoint(endpoint,port,secure)
-                        .build();
-        return minioClient;
+                        .httpClient(minioHttpClient);
+        if (StringUtils.isNotBlank(region)) {
+            builder.region(region);
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @Primary
+    public MinioAsyncClient minioAsyncClient(OkHttpClient minioHttpClient) {
+        MinioAsyncClient.Builder builder = MinioAsyncClient.builder()
+                .credentials(accessKey, secretKey)
+                .endpoint(endpoint,port,secure)
+                .httpClient(minioHttpClient);
+        if (StringUtils.isNotBlank(region)) {
+            builder.region(region);
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public MinioMultipartClient minioMultipartClient(MinioAsyncClient minioAsyncClient) {
+        return new MinioMultipartClient(minioAsyncClient);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService minioAsyncExecutor(Environment environment) {
+        // Runs the calls MinioAsyncClient only offers blocking: listing, presigning and parallel multipart uploads
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-async-", 1).factory());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(async.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "minio-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Data
+    public static class Multipart {
+
+        /** *  Whether large uploads use the parallel multipart engine  */
+        private boolean enabled = true;
+
+        /** *  Objects at least this large are uploaded in parallel parts  */
+        private long threshold = 67108864;
+
+        /** *  Number of parts uploaded at the same time  */
+        private int concurrency = 4;
+
+        /** *  Retries of a single failed part before the upload is aborted  */
+        private int maxRetries = 3;
+
+        /** *  Wait before the first retry of a part, doubled on each further retry  */
+        private Duration retryBackoff = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class Pool {
+
+        /** *  Node URLs of the cluster; requests stay signed for minio.endpoint, empty for that endpoint alone  */
+        private List<String> endpoints = new ArrayList<>();
+
+        /** *  Interval between two probes of /minio/health/live on every node  */
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+        /** *  Connect and read timeout of a probe  */
+        private Duration healthCheckTimeout = Duration.ofSeconds(2);
+
+        /** *  Consecutive I/O errors after which a node is ejected until its next successful probe  */
+        private int ejectAfterFailures = 3;
+    }
+
+    @Data
+    public static class Transport {
+
+        /** *  Timeout of a TCP connect, short so a dead node fails over quickly  */
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /** *  Timeout between two reads of a response  */
+        private Duration readTimeout = Duration.ofMinutes(5);
+
+        /** *  Timeout between two writes of a request  */
+        private Duration writeTimeout = Duration.ofMinutes(5);
+
+        /** *  Idle connections kept open per node  */
+        private int maxIdleConnections = 32;
+
+        /** *  Time an idle connection is kept open  */
+        private Duration keepAlive = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Async {
+
+        /** *  Threads running the storage calls that have no asynchronous variant  */
+        private int threads = 8;
+
+        /** *  Requests to MinIO the HTTP client may keep in flight at the same time  */
+        private int maxInFlight = 256;
+    }
+
+    @Data
+    public static class Cache {
+
+        /** *  Whether downloads are served through the local disk cache  */
+        private boolean enabled = false;
+
+        /** *  Directory holding the cached objects, cleared at startup  */
+        private String directory = Path.of(System.getProperty("java.io.tmpdir"), "minio-object-cache").toString();
+
+        /** *  Disk space the cache may use  */
+        private long maxBytes = 1073741824;
+
+        /** *  Larger objects are always streamed from MinIO  */
+        private long maxObjectSize = 16777216;
+
+        /** *  Reads of an object before it is admitted to the cache  */
+        private int minHits = 2;
+
+        /** *  Reads between two halvings of the access counts  */
+        private int agingInterval = 10000;
+    }
+
+    @Data
+    public static class Presign {
+
+        /** *  Validity of a presigned URL, at most 7 days  */
+        private Duration expiry = Duration.ofMinutes(10);
+
+        /** *  A cached URL is signed again when it has less than this left  */
+        private Duration refreshBefore = Duration.ofMinutes(2);
+
+        /** *  URLs kept in the cache  */
+        private int maxEntries = 100000;
+    }
+
+    @Data
+    public static class Delete {
+
+        /** *  Keys per multi-object delete request, S3 accepts at most 1000  */
+        private int batchSize = 1000;
+
+        /** *  Delete requests sent at the same time  */
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Upload {
+
+        /** *  Files of a bulk upload sent to MinIO at the same time  */
+        private int concurrency = 8;
+    }
+
+    @Data
+    public static class Zip {
+
+        /** *  Objects opened ahead of the one being written, each holds one MinIO connection  */
+        private int prefetch = 4;
+    }
+
+    @Data
+    public static class Dedup {
+
+        /** *  Whether uploads are named after their SHA-256 digest and stored once per bucket  */
+        private boolean enabled = false;
+
+        /** *  Digests kept in memory, misses are checked against MinIO  */
+        private int maxEntries = 1000000;
+
+        /** *  Bucket holding one empty marker per upload of deduplicated content, removed with each delete  */
+        private String referenceBucket = "dedup-references";
+    }
+
+    @Data
+    public static class Compression {
+
+        /** *  Whether matching uploads are stored deflated  */
+        private boolean enabled = false;
+
+        /** *  Content types stored compressed, formats that are compressed already gain nothing  */
+        private List<String> contentTypes = List.of(
+                "text/plain", "text/csv", "text/markdown", "application/json", "application/xml", "application/rtf",
+                "application/msword", "application/vnd.ms-excel", "application/vnd.ms-powerpoint");
+
+        /** *  Smaller objects are stored as they are  */
+        private long minSize = 1024;
+
+        /** *  Deflate level, from 1 (fastest) to 9 (smallest)  */
+        private int level = 6;
+    }
+
+    @Data
+    public static class Image {
+
+        /** *  Images resized at the same time, the work is CPU bound  */
+        private int concurrency = Runtime.getRuntime().availableProcessors();
+
+        /** *  Widths that variants are generated at, a requested width is rounded up to the next one  */
+        private List<Integer> widths = List.of(64, 128, 256, 512, 1024, 2048);
+
+        /** *  Larger source images are refused instead of decoded  */
+        private long maxSourcePixels = 50000000;
+
+        /** *  Quality of JPEG variants, from 0 to 1  */
+        private float jpegQuality = 0.85f;
+
+        /** *  Bucket where variants are stored, apart from the buckets of their sources  */
+        private String bucket = "image-variants";
+    }
+
+    @Data
+    public static class Hedge {
+
+        /** *  Whether slow reads are sent a second time  */
+        private boolean enabled = false;
+
+        /** *  A second request is sent once the first is slower than this percentile of recent reads  */
+        private double percentile = 0.95;
+
+        /** *  Lower bound of the hedge delay, keeps fast reads from being duplicated  */
+        private Duration minDelay = Duration.ofMillis(20);
+
+        /** *  Recent latencies per operation the percentile is taken from  */
+        private int samples = 1024;
+
+        /** *  Hedges allowed per read, 0.05 adds at most 5% requests  */
+        private double budget = 0.05;
+
+        /** *  Unused hedges that may be saved up for a burst of slow reads  */
+        private int maxBurst = 10;
+    }
+
+    @Data
+    public static class Tracing {
+
+        /** *  Register the tracing aspect at all, nothing is recorded when disabled  */
+        private boolean enabled = false;
+
+        /** *  Fraction of top-level calls traced together with the calls they make, from 0 to 1  */
+        private double sampleRate = 0.01;
+
+        /** *  Calls slower than this are logged even when they are not sampled  */
+        private Duration slowThreshold = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Resumable {
+
+        /** *  Chunk size of a session that does not ask for one  */
+        private long chunkSize = 16777216;
+
+        /** *  Largest chunk a session may ask for, each chunk is held in memory while it is stored  */
+        private long maxChunkSize = 67108864;
+
+        /** *  Memory shared by the chunks being stored at the same time, further chunks wait for room  */
+        private long maxBufferedBytes = 536870912;
+
+        /** *  A session without any request for this long is aborted  */
+        private Duration expiry = Duration.ofHours(24);
+
+        /** *  Interval between two sweeps of the expired sessions and of uploads left behind by a restart  */
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+
+        /** *  Sessions open at the same time  */
+        private int maxSessions = 1000;
+
+        /** *  Prefix of the objects written by sessions, only uploads under it are aborted after a restart  */
+        private String prefix = "resumable/";
+    }
+
+    @Data
+    public static class Limits {
+
+        /** *  Whether requests over the limit of their bulkhead are refused with 503  */
+        private boolean enabled = true;
+
+        /** *  Weight of a newly computed limit against the current one, from 0 to 1  */
+        private double smoothing = 0.2;
+
+        /** *  Latency growth over the long-term average tolerated before a limit shrinks  */
+        private double tolerance = 1.5;
+
+        /** *  Requests averaged into the long-term latency of a bulkhead  */
+        private int longWindow = 600;
+
+        /** *  Initial, minimum and maximum limit of every bulkhead  */
+        private Map<BulkheadType, Limit> bulkheads = new EnumMap<>(Map.of(
+                BulkheadType.UPLOAD, new Limit(16, 2, 64),
+                BulkheadType.DOWNLOAD, new Limit(64, 4, 256),
+                BulkheadType.LISTING, new Limit(32, 4, 128),
+                BulkheadType.ADMIN, new Limit(16, 2, 64)));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /** *  Limit before any latency has been measured  */
+        private int initial = 16;
+
+        /** *  The limit never shrinks below this  */
+        private int min = 1;
+
+        /** *  The limit never grows above this, caps the threads the bulkhead can take  */
+        private int max = 200;
+    }
+
+    @Data
+    public static class Buckets {
+
+        /** *  Interval between two reloads of the bucket registry from MinIO  */
+        private Duration refreshInterval = Duration.ofMinutes(5);
     }
 }
@@ -0,0 +1,180 @@
+package com.springminio.app.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads the MinIO requests over the nodes of a cluster. Each request is sent to the healthy node
+ * with the fewest requests outstanding; only the URL is rewritten, the Host header the client signed
+ * is kept, so any node accepts it. A node is ejected after {@code minio.pool.eject-after-failures}
+ * consecutive I/O errors or a failed {@code /minio/health/live} probe, and re-admitted by the next
+ * probe that succeeds. A request whose connection is refused or times out is retried once on another
+ * node; {@link #connectionTracker()} must be a network interceptor of the same client, so a timeout
+ * after the connection was up is told apart and never resent. Without endpoints every request goes
+ * to {@code minio.endpoint} unchanged.
+ */
+public class MinioEndpointPool implements Interceptor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioEndpointPool.class);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final OkHttpClient healthClient;
+    private final int ejectAfterFailures;
+
+    public MinioEndpointPool(List<String> endpoints, int ejectAfterFailures, OkHttpClient healthClient,
+                             MeterRegistry meterRegistry) {
+        for (String endpoint : endpoints) {
+            HttpUrl url = HttpUrl.get(endpoint);
+            Node node = new Node(url);
+            nodes.add(node);
+            Gauge.builder("minio.endpoint.healthy", node, n -> n.healthy ? 1 : 0)
+                    .description("Nó do MinIO disponível para requisições")
+                    .tag("endpoint", node.name())
+                    .register(meterRegistry);
+            Gauge.builder("minio.endpoint.outstanding", node.outstanding, AtomicInteger::get)
+                    .description("Requisições em andamento por nó do MinIO")
+                    .tag("endpoint", node.name())
+                    .register(meterRegistry);
+        }
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.healthClient = healthClient;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (nodes.isEmpty()) {
+            return chain.proceed(request);
+        }
+        Node node = select(null);
+        Attempt attempt = new Attempt();
+        try {
+            return send(chain, request, node, attempt);
+        } catch (ConnectException | SocketTimeoutException e) {
+            // Without a connection nothing reached the node, so the request is safe to send elsewhere
+            Node other = select(node);
+            if (attempt.connected || other == node) {
+                throw e;
+            }
+            LOGGER.warn("MinioEndpointPool | intercept | {} não aceitou a conexão ({}), reenviando para {}",
+                    node.name(), e.getMessage(), other.name());
+            return send(chain, request, other, new Attempt());
+        }
+    }
+
+    // Network interceptors only run once the connection is up, so this marks the attempts that may have sent the request
+    public Interceptor connectionTracker() {
+        return chain -> {
+            Attempt attempt = chain.request().tag(Attempt.class);
+            if (attempt != null) {
+                attempt.connected = true;
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+
+    private Response send(Chain chain, Request request, Node node, Attempt attempt) throws IOException {
+        HttpUrl url = request.url().newBuilder()
+                .scheme(node.url.scheme())
+                .host(node.url.host())
+                .port(node.url.port())
+                .build();
+        node.outstanding.incrementAndGet();
+        try {
+            Response response = chain.proceed(request.newBuilder().url(url).tag(Attempt.class, attempt).build());
+            node.failures.set(0);
+            return response;
+        } catch (IOException e) {
+            if (node.failures.incrementAndGet() >= ejectAfterFailures && node.healthy) {
+                node.healthy = false;
+                LOGGER.warn("MinioEndpointPool | send | {} removido após {} falhas : {}", node.name(), ejectAfterFailures, e.getMessage());
+            }
+            throw e;
+        } finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    // Least outstanding requests among the healthy nodes, ties broken at random; every node when none is healthy
+    private Node select(Node excluded) {
+        Node best = null;
+        int ties = 0;
+        for (boolean anyHealth : new boolean[]{false, true}) {
+            for (Node node : nodes) {
+                if (node == excluded || (!anyHealth && !node.healthy)) {
+                    continue;
+                }
+                int outstanding = node.outstanding.get();
+                if (best == null || outstanding < best.outstanding.get()) {
+                    best = node;
+                    ties = 1;
+                } else if (outstanding == best.outstanding.get() && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                    best = node;
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return excluded;
+    }
+
+    @Scheduled(fixedDelayString = "#{@minioConfig.pool.healthCheckInterval.toMillis()}")
+    public void checkHealth() {
+        for (Node node : nodes) {
+            boolean live;
+            try (Response response = healthClient.newCall(new Request.Builder()
+                    .url(node.url.resolve("/minio/health/live"))
+                    .get()
+                    .build()).execute()) {
+                live = response.isSuccessful();
+            } catch (IOException e) {
+                live = false;
+            }
+            if (live != node.healthy) {
+                LOGGER.info("MinioEndpointPool | checkHealth | {} : {}", node.name(), live ? "readmitido" : "removido");
+            }
+            if (live) {
+                node.failures.set(0);
+            }
+            node.healthy = live;
+        }
+    }
+
+    private static class Attempt {
+
+        private volatile boolean connected;
+    }
+
+    private static class Node {
+
+        private final HttpUrl url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile boolean healthy = true;
+
+        Node(HttpUrl url) {
+            this.url = url;
+        }
+
+        String name() {
+            return url.host() + ":" + url.port();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.springminio.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * Counts the MinIO requests that fail into {@code minio.client.errors}, tagged by HTTP method and by
+ * the status returned (or {@code IO_ERROR} when no response arrived). It sits on the shared transport,
+ * so the blocking, async and multipart clients are all covered, retries included.
+ */
+public class MinioErrorMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    public MinioErrorMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String method = chain.request().method();
+        try {
+            Response response = chain.proceed(chain.request());
+            if (response.code() >= 400) {
+                count(method, String.valueOf(response.code()));
+            }
+            return response;
+        } catch (IOException e) {
+            count(method, "IO_ERROR");
+            throw e;
+        }
+    }
+
+    private void count(String method, String status) {
+        Counter.builder("minio.client.errors")
+                .description("Requisições ao MinIO que falharam")
+                .tags("method", method, "status", status)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,127 @@
+package com.springminio.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * Counts the body bytes written to and read from MinIO into {@code minio.transfer.bytes}, by direction.
+ * It is a network interceptor of the shared transport, so every upload and download is counted where the
+ * bytes actually move, whichever client, service or utility method started it, and each retry is counted again.
+ */
+public class MinioTransferMetricsInterceptor implements Interceptor {
+
+    private final Counter uploaded;
+    private final Counter downloaded;
+
+    public MinioTransferMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.uploaded = counter(meterRegistry, "upload");
+        this.downloaded = counter(meterRegistry, "download");
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.body() != null) {
+            request = request.newBuilder().method(request.method(), new CountingRequestBody(request.body())).build();
+        }
+        Response response = chain.proceed(request);
+        if (response.body() == null) {
+            return response;
+        }
+        return response.newBuilder().body(new CountingResponseBody(response.body())).build();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String direction) {
+        return Counter.builder("minio.transfer.bytes")
+                .description("Bytes enviados e recebidos do MinIO")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private class CountingRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+
+        CountingRequestBody(RequestBody delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return delegate.isOneShot();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            BufferedSink counting = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    super.write(source, byteCount);
+                    uploaded.increment(byteCount);
+                }
+            });
+            delegate.writeTo(counting);
+            counting.emit();
+        }
+    }
+
+    private class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingResponseBody(ResponseBody delegate) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        downloaded.increment(read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.springminio.app.config;
+
+import com.springminio.app.limit.BulkheadInterceptor;
+import com.springminio.app.limit.ConcurrencyLimits;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<ConcurrencyLimits> concurrencyLimits;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Absent when minio.limits.enabled is false
+        concurrencyLimits.ifAvailable(limits -> registry.addInterceptor(new BulkheadInterceptor(limits)));
+    }
+}
@@ -0,0 +1,145 @@
+package com.springminio.app.controller;
+
+import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.limit.Bulkhead;
+import com.springminio.app.limit.BulkheadType;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.service.AsyncMinioService;
+import com.springminio.app.util.CompressionUtil;
+import com.springminio.app.util.StreamCopyUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/minio/async")
+@Tag(name = "Minio Async Controller", description = "API assíncrona para gerenciamento de arquivos no MinIO")
+public class AsyncMinioController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncMinioController.class);
+    private final AsyncMinioService asyncMinioService;
+    private static final String DELETE_SUCCESS = "Operação de deleção realizada com sucesso";
+    private static final String DELETE_FAILED = "Falha na operação de deleção";
+
+
+    @PostMapping("/upload")
+    @Bulkhead(BulkheadType.UPLOAD)
+    @Operation(summary = "Upload assíncrono de arquivo", description = "Realiza o upload de um arquivo sem ocupar a thread da requisição")
+    public CompletableFuture<FileResponse> uploadFile(
+            @Parameter(description = "Arquivo a ser enviado") @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Nome do bucket") @RequestParam String bucketName) {
+
+        LOGGER.info("AsyncMinioController | uploadFile | bucketName : {}", bucketName);
+
+        return Optional.ofNullable(file)
+                .filter(f -> !f.isEmpty())
+                .map(f -> asyncMinioService.putObject(f, bucketName))
+                .orElseThrow(() -> new FileResponseException("Arquivo não pode estar vazio"));
+    }
+
+
+    @GetMapping("/download/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.DOWNLOAD)
+    @Operation(summary = "Download assíncrono de objeto", description = "Realiza o download de um objeto sem ocupar a thread da requisição")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> download(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Nome do objeto") @PathVariable String objectName,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        LOGGER.info("AsyncMinioController | download | bucketName : {}", bucketName);
+
+        return asyncMinioService.getObject(bucketName, objectName)
+                .thenApply(object -> {
+                    // Compressed objects are sent as stored when the client accepts the codec, otherwise inflated
+                    boolean compressed = CompressionUtil.isCompressed(object.headers());
+                    boolean passthrough = compressed && CompressionUtil.accepts(acceptEncoding);
+                    StreamingResponseBody body = outputStream -> StreamCopyUtils.copy(
+                            compressed && !passthrough ? CompressionUtil.decompress(object) : object, outputStream);
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename="
+                                    + URLEncoder.encode(objectName, StandardCharsets.UTF_8))
+                            .contentType(MediaType.APPLICATION_OCTET_STREAM);
+                    if (compressed) {
+                        builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    }
+                    if (passthrough) {
+                        builder.header(HttpHeaders.CONTENT_ENCODING, CompressionUtil.CODEC);
+                    }
+                    return builder.body(body);
+                });
+    }
+
+
+    @GetMapping("/stat/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Metadados do objeto", description = "Retorna tamanho, tipo e data de modificação de um objeto")
+    public CompletableFuture<FileResponse> stat(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Nome do objeto") @PathVariable String objectName) {
+
+        LOGGER.info("AsyncMinioController | stat | bucketName : {}", bucketName);
+
+        return asyncMinioService.statObject(bucketName, objectName)
+                .thenApply(stat -> FileResponse.builder()
+                        .filename(stat.object())
+                        .contentType(stat.contentType())
+                        .fileSize(stat.size())
+                        .createdTime(stat.lastModified() != null
+                                ? stat.lastModified().withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime()
+                                : null)
+                        .build());
+    }
+
+
+    @GetMapping("/show/{bucketName}")
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Listar objetos do bucket de forma assíncrona", description = "Lista todos os objetos contidos em um bucket específico")
+    public CompletableFuture<List<String>> show(
+            @Parameter(description = "Nome do bucket para listar os objetos") @PathVariable String bucketName) {
+        LOGGER.info("AsyncMinioController | show | bucketName : {}", bucketName);
+        return asyncMinioService.listObjectNames(bucketName);
+    }
+
+
+    @DeleteMapping("/removeObject/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.ADMIN)
+    @Operation(summary = "Remover objeto de forma assíncrona", description = "Remove um objeto específico de um bucket")
+    public CompletableFuture<String> delObject(
+            @Parameter(description = "Nome do bucket") @PathVariable("bucketName") String bucketName,
+            @Parameter(description = "Nome do objeto") @PathVariable("objectName") String objectName) {
+
+        LOGGER.info("AsyncMinioController | delObject | bucketName: {}, objectName: {}", bucketName, objectName);
+
+        return asyncMinioService.removeObject(bucketName, objectName)
+                .thenApply(success -> success ? DELETE_SUCCESS : DELETE_FAILED);
+    }
+
+
+    @GetMapping("/showURL/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Obter URL do objeto de forma assíncrona", description = "Retorna a URL pré-assinada de um objeto no bucket")
+    public CompletableFuture<String> showObjectUrl(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Nome do objeto") @PathVariable String objectName) {
+
+        LOGGER.info("AsyncMinioController | showObjectUrl is called");
+        return asyncMinioService.getObjectUrl(bucketName, objectName);
+    }
+}
@@ -1,31 +1,57 @@
 package com.springminio.app.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.limit.Bulkhead;
+import com.springminio.app.limit.BulkheadType;
+import com.springminio.app.payload.DeleteResponse;
 import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.payload.ObjectListing;
+import com.springminio.app.payload.PresignedUrls;
 import com.springminio.app.service.MinioService;
-import com.springminio.app.util.FileTypeUtils;
+import com.springminio.app.util.CompressionUtil;
+import com.springminio.app.util.StreamCopyUtils;
+import io.minio.StatObjectResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.apache.tomcat.util.http.fileupload.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,14 +61,24 @@ public class MinioController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MinioController.class);
     private final MinioService minioService;
+    private final ObjectMapper objectMapper;
     private static final String DELETE_SUCCESS = "Operação de deleção realizada com sucesso";
     private static final String DELETE_FAILED = "Falha na operação de deleção";
+    private static final int STREAM_FLUSH_INTERVAL = 1000;
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
 
 
     @Value("${server.port}")
     private int portNumber;
 
+    @Value("${minio.download.cache-control:max-age=3600}")
+    private String cacheControl;
+
+    @Value("${minio.image.bucket:image-variants}")
+    private String imageVariantBucket;
+
     @PostMapping("/upload")
+    @Bulkhead(BulkheadType.UPLOAD)
     @Operation(summary = "Upload de arquivo", description = "Realiza o upload de um arquivo para um bucket específico")
     public FileResponse uploadFile(
             @Parameter(description = "Arquivo a ser enviado") @RequestParam("file") MultipartFile file,
@@ -52,16 +88,34 @@ public class MinioController {
 
         return Optional.ofNullable(file)
                 .filter(f -> !f.isEmpty())
-                .map(f -> {
-                    String fileType = Optional.ofNullable(FileTypeUtils.getFileType(f))
-                            .orElseThrow(() -> new FileResponseException("Tipo de arquivo não suportado"));
-                    return minioService.putObject(f, bucketName, fileType);
-                })
+                .map(f -> minioService.putObject(f, bucketName))
                 .orElseThrow(() -> new FileResponseException("Arquivo não pode estar vazio"));
     }
 
 
+    @PostMapping("/uploads")
+    @Bulkhead(BulkheadType.UPLOAD)
+    @Operation(summary = "Upload de vários arquivos",
+            description = "Realiza o upload de vários arquivos em uma única requisição, enviados ao MinIO em paralelo; cada arquivo recebe sua própria resposta, com o erro quando falhar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultado do upload de cada arquivo"),
+            @ApiResponse(responseCode = "400", description = "Nenhum arquivo enviado")
+    })
+    public List<FileResponse> uploadFiles(
+            @Parameter(description = "Arquivos a serem enviados") @RequestParam("files") List<MultipartFile> files,
+            @Parameter(description = "Nome do bucket") @RequestParam String bucketName) {
+
+        LOGGER.info("MinioController | uploadFiles | bucketName : {}, files : {}", bucketName, files.size());
+
+        return Optional.of(files)
+                .filter(list -> !list.isEmpty())
+                .map(list -> minioService.putObjects(list, bucketName))
+                .orElseThrow(() -> new FileResponseException("Nenhum arquivo enviado"));
+    }
+
+
     @PostMapping("/addBucket/{bucketName}")
+    @Bulkhead(BulkheadType.ADMIN)
     @Operation(summary = "Criar novo bucket", description = "Cria um novo bucket no MinIO com o nome especificado")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Bucket criado com sucesso"),
@@ -79,6 +133,7 @@ public class MinioController {
 
 
     @GetMapping("/showURL/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.LISTING)
     @Operation(summary = "Obter URL do objeto", description = "Retorna a URL de acesso para um objeto específico no bucket")
     public String showObjectUrl(
             @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
@@ -89,7 +144,27 @@ public class MinioController {
     }
 
 
+    @GetMapping("/presign/{bucketName}")
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Obter URLs pré-assinadas em lote",
+            description = "Retorna uma página com os nomes dos objetos de um bucket ou prefixo e suas URLs pré-assinadas para download direto do MinIO; a próxima página é obtida com o token de continuação retornado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de objetos e URLs retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Token de continuação inválido")
+    })
+    public PresignedUrls presignObjectUrls(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Prefixo dos objetos") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Quantidade máxima de objetos na página (até 999)") @RequestParam(defaultValue = "999") int maxKeys,
+            @Parameter(description = "Token de continuação da página anterior") @RequestParam(required = false) String continuationToken) {
+
+        LOGGER.info("MinioController | presignObjectUrls | bucketName : {}, prefix : {}", bucketName, prefix);
+        return minioService.getObjectUrls(bucketName, prefix, maxKeys, continuationToken);
+    }
+
+
     @GetMapping("/show/{bucketName}")
+    @Bulkhead(BulkheadType.LISTING)
     @Operation(summary = "Listar objetos do bucket", description = "Lista todos os objetos contidos em um bucket específico")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de objetos retornada com sucesso"),
@@ -102,7 +177,59 @@ public class MinioController {
         return minioService.listObjectNames(bucketName);
     }
 
+    @GetMapping("/list/{bucketName}")
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Listar objetos paginados",
+            description = "Lista uma página de objetos de um bucket, filtrando por prefixo e agrupando por delimitador; a próxima página é obtida com o token de continuação retornado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de objetos retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Bucket não encontrado ou token de continuação inválido")
+    })
+    public ObjectListing listObjects(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Prefixo dos objetos") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Delimitador para agrupar objetos em pastas") @RequestParam(required = false) String delimiter,
+            @Parameter(description = "Quantidade máxima de objetos na página (até 999)") @RequestParam(defaultValue = "999") int maxKeys,
+            @Parameter(description = "Token de continuação da página anterior") @RequestParam(required = false) String continuationToken) {
+
+        LOGGER.info("MinioController | listObjects | bucketName : {}, prefix : {}", bucketName, prefix);
+        return minioService.listObjects(bucketName, prefix, delimiter, maxKeys, continuationToken);
+    }
+
+
+    @GetMapping(value = "/stream/{bucketName}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Listar objetos em streaming",
+            description = "Lista todos os objetos de um bucket ou prefixo como NDJSON, um objeto por linha, enviados à medida que são lidos do MinIO")
+    public ResponseEntity<StreamingResponseBody> streamObjects(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Prefixo dos objetos") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Delimitador para agrupar objetos em pastas") @RequestParam(required = false) String delimiter) {
+
+        LOGGER.info("MinioController | streamObjects | bucketName : {}, prefix : {}", bucketName, prefix);
+
+        Stream<ObjectEntry> entries = minioService.streamObjects(bucketName, prefix, delimiter);
+        StreamingResponseBody body = outputStream -> {
+            try (entries) {
+                int written = 0;
+                for (ObjectEntry entry : (Iterable<ObjectEntry>) entries::iterator) {
+                    outputStream.write(objectMapper.writeValueAsBytes(entry));
+                    outputStream.write('\n');
+                    // Flush every listing page so clients see entries while the rest is still being listed
+                    if (++written % STREAM_FLUSH_INTERVAL == 0) {
+                        outputStream.flush();
+                    }
+                }
+                outputStream.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/showBucketName")
+    @Bulkhead(BulkheadType.ADMIN)
     @Operation(summary = "Listar buckets", description = "Lista todos os buckets disponíveis no MinIO")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de buckets retornada com sucesso")
@@ -114,6 +241,7 @@ public class MinioController {
 
 
     @DeleteMapping("/removeBucket/{bucketName}")
+    @Bulkhead(BulkheadType.ADMIN)
     @Operation(summary = "Remover bucket", description = "Remove um bucket específico")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Bucket removido com sucesso"),
@@ -126,6 +254,7 @@ public class MinioController {
 
 
     @DeleteMapping("/removeObject/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.ADMIN)
     @Operation(summary = "Remover objeto", description = "Remove um objeto específico de um bucket")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Objeto removido com sucesso"),
@@ -144,12 +273,14 @@ public class MinioController {
 
 
     @DeleteMapping("/removeListObject/{bucketName}")
-    @Operation(summary = "Remover lista de objetos", description = "Remove múltiplos objetos de um bucket específico")
+    @Bulkhead(BulkheadType.ADMIN)
+    @Operation(summary = "Remover lista de objetos",
+            description = "Remove múltiplos objetos de um bucket específico e informa o resultado de cada objeto, para que apenas os que falharam sejam reenviados")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Objetos removidos com sucesso"),
-            @ApiResponse(responseCode = "400", description = "Falha ao remover objetos")
+            @ApiResponse(responseCode = "200", description = "Resultado da remoção de cada objeto"),
+            @ApiResponse(responseCode = "400", description = "Lista vazia ou bucket não encontrado")
     })
-    public String delListObject(
+    public DeleteResponse delListObject(
             @Parameter(description = "Nome do bucket") @PathVariable("bucketName") String bucketName,
             @Parameter(description = "Lista de nomes dos objetos a serem removidos") @RequestBody List<String> objectNameList) {
 
@@ -159,12 +290,12 @@ public class MinioController {
         return Optional.of(objectNameList)
                 .filter(list -> !list.isEmpty())
                 .map(list -> minioService.removeListObject(bucketName, list))
-                .map(success -> success ? DELETE_SUCCESS : DELETE_FAILED)
-                .orElse(DELETE_FAILED);
+                .orElseThrow(() -> new FileResponseException("Lista de objetos não pode estar vazia"));
     }
 
 
     @GetMapping("/showListObjectNameAndDownloadUrl/{bucketName}")
+    @Bulkhead(BulkheadType.LISTING)
     @Operation(summary = "Listar objetos com URLs de download",
             description = "Retorna um mapa com os nomes dos objetos e suas respectivas URLs de download")
     @ApiResponses(value = {
@@ -191,32 +322,262 @@ public class MinioController {
     }
 
 
+    @GetMapping(value = "/zip/{bucketName}", produces = ZIP_CONTENT_TYPE)
+    @Bulkhead(BulkheadType.DOWNLOAD)
+    @Operation(summary = "Download ZIP de um prefixo",
+            description = "Gera em streaming um arquivo ZIP com todos os objetos de um bucket ou prefixo, sem arquivos temporários")
+    public ResponseEntity<StreamingResponseBody> downloadZip(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Prefixo dos objetos") @RequestParam(required = false) String prefix) {
+
+        LOGGER.info("MinioController | downloadZip | bucketName : {}, prefix : {}", bucketName, prefix);
+
+        Stream<String> objectNames = minioService.streamObjects(bucketName, prefix, null)
+                .map(ObjectEntry::getName);
+        // The archive is named after the last folder of the prefix, or the bucket
+        String folder = StringUtils.removeEnd(StringUtils.defaultString(prefix), "/");
+        String archiveName = StringUtils.defaultIfBlank(StringUtils.substringAfterLast(folder, "/"),
+                StringUtils.defaultIfBlank(folder, bucketName));
+        return zipResponse(bucketName, archiveName, objectNames);
+    }
+
+
+    @PostMapping(value = "/zip/{bucketName}", produces = ZIP_CONTENT_TYPE)
+    @Bulkhead(BulkheadType.DOWNLOAD)
+    @Operation(summary = "Download ZIP de uma lista de objetos",
+            description = "Gera em streaming um arquivo ZIP com os objetos informados, sem arquivos temporários; objetos inexistentes são ignorados")
+    public ResponseEntity<StreamingResponseBody> downloadZip(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Lista de nomes dos objetos") @RequestBody List<String> objectNameList) {
+
+        LOGGER.info("MinioController | downloadZip | bucketName : {}, quantidade de objetos : {}",
+                bucketName, objectNameList.size());
+
+        if (objectNameList.isEmpty()) {
+            throw new FileResponseException("Lista de objetos não pode estar vazia");
+        }
+        if (!minioService.bucketExists(bucketName)) {
+            throw new FileResponseException("Bucket não encontrado");
+        }
+        return zipResponse(bucketName, bucketName, objectNameList.stream());
+    }
+
+    private ResponseEntity<StreamingResponseBody> zipResponse(String bucketName, String archiveName, Stream<String> objectNames) {
+        StreamingResponseBody body = outputStream -> {
+            try (objectNames) {
+                minioService.writeZip(bucketName, objectNames, outputStream);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ZIP_CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename="
+                        + URLEncoder.encode(archiveName + ".zip", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+
     @GetMapping("/download/{bucketName}/{objectName}")
-    @Operation(summary = "Download de objeto", description = "Realiza o download de um objeto específico do bucket")
+    @Bulkhead(BulkheadType.DOWNLOAD)
+    @Operation(summary = "Download de objeto", description = "Realiza o download de um objeto específico do bucket, inteiro ou por intervalos (Range)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Objeto completo"),
+            @ApiResponse(responseCode = "206", description = "Intervalos solicitados do objeto"),
+            @ApiResponse(responseCode = "416", description = "Intervalo solicitado inválido")
+    })
     public void download(
+            ServletWebRequest webRequest,
             HttpServletResponse response,
             @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
-            @Parameter(description = "Nome do objeto") @PathVariable String objectName) {
+            @Parameter(description = "Nome do objeto") @PathVariable String objectName,
+            @Parameter(description = "Intervalos de bytes, ex.: bytes=0-1023") @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
 
         LOGGER.info("MinioController | download is called");
         LOGGER.info("MinioController | download | bucketName : {}", bucketName);
 
-
-        InputStream inputStream = minioService.downloadObject(bucketName, objectName)
+        StatObjectResponse stat = minioService.statObject(bucketName, objectName)
                 .orElseThrow(() -> new FileResponseException("Arquivo não encontrado"));
+        long objectSize = stat.size();
+        String contentType = Optional.ofNullable(stat.contentType()).orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        // Objects stored compressed go out as stored when the client accepts the codec, otherwise inflated on the way
+        boolean compressed = CompressionUtil.isCompressed(stat);
+        boolean passthrough = compressed && CompressionUtil.accepts(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = compressed && !passthrough ? stat.etag() + "-identity" : stat.etag();
+
+        // Validators come from the stat alone, so a 304 never opens the object stream
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (compressed) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        long lastModified = stat.lastModified() != null ? stat.lastModified().toInstant().toEpochMilli() : -1;
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            LOGGER.info("MinioController | download | objeto não modificado : {}", objectName);
+            return;
+        }
 
-        try (InputStream in = inputStream) {
-            response.setHeader("Content-Disposition", "attachment;filename="
-                    + URLEncoder.encode(objectName, "UTF-8"));
-            response.setCharacterEncoding("UTF-8");
-            IOUtils.copy(in, response.getOutputStream());
-        } catch (UnsupportedEncodingException e) {
-            LOGGER.error("Erro de codificação ao fazer download do arquivo: {}", e.getMessage(), e);
-            throw new FileResponseException("Erro ao processar nome do arquivo");
+        // Byte offsets of the decompressed content are unknown without inflating it, so ranges are off for those objects
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, compressed ? "none" : "bytes");
+        response.setHeader("Content-Disposition", "attachment;filename="
+                + URLEncoder.encode(objectName, StandardCharsets.UTF_8));
+
+        // Only whole-object reads copy a missing object into the cache, a range never pulls in all of it
+        boolean wholeObject = compressed || StringUtils.isBlank(range)
+                || !ifRangeMatches(webRequest.getHeader(HttpHeaders.IF_RANGE), stat);
+        Path cached = minioService.cachedObject(bucketName, objectName, stat, wholeObject).orElse(null);
+
+        try {
+            if (compressed) {
+                response.setContentType(contentType);
+                if (passthrough) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, CompressionUtil.CODEC);
+                    response.setContentLengthLong(objectSize);
+                    copyRange(bucketName, objectName, cached, 0, null, response.getOutputStream());
+                    return;
+                }
+                CompressionUtil.originalSize(stat).ifPresent(response::setContentLengthLong);
+                StreamCopyUtils.inflate(response.getOutputStream(),
+                        out -> copyRange(bucketName, objectName, cached, 0, null, out));
+                return;
+            }
+
+            if (wholeObject) {
+                response.setContentType(contentType);
+                response.setContentLengthLong(objectSize);
+                copyRange(bucketName, objectName, cached, 0, null, response.getOutputStream());
+                return;
+            }
+
+            List<ByteRange> byteRanges = parseRanges(range, objectSize);
+            if (byteRanges.isEmpty()) {
+                LOGGER.info("MinioController | download | intervalo inválido : {}", range);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + objectSize);
+                return;
+            }
+
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            if (byteRanges.size() == 1) {
+                ByteRange byteRange = byteRanges.get(0);
+                response.setContentType(contentType);
+                response.setContentLengthLong(byteRange.length());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, byteRange.contentRange(objectSize));
+                copyRange(bucketName, objectName, cached, byteRange.start(), byteRange.length(), response.getOutputStream());
+                return;
+            }
+
+            // Several ranges go out as one multipart/byteranges body, each part fetched on its own
+            String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            OutputStream out = response.getOutputStream();
+            for (ByteRange byteRange : byteRanges) {
+                out.write(("\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": " + byteRange.contentRange(objectSize) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                copyRange(bucketName, objectName, cached, byteRange.start(), byteRange.length(), out);
+            }
+            out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
         } catch (IOException e) {
             LOGGER.error("Erro de I/O ao fazer download do arquivo: {}", e.getMessage(), e);
             throw new FileResponseException("Erro ao fazer download do arquivo");
         }
     }
-}
 
+    @GetMapping("/image/{bucketName}/{objectName}")
+    @Bulkhead(BulkheadType.DOWNLOAD)
+    @Operation(summary = "Variante redimensionada de imagem",
+            description = "Retorna a imagem redimensionada para a largura pedida (arredondada para a próxima largura configurada); a variante é gerada no primeiro pedido, armazenada no MinIO e servida de lá nos seguintes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imagem redimensionada"),
+            @ApiResponse(responseCode = "400", description = "Arquivo não encontrado ou formato de imagem não suportado")
+    })
+    public void image(
+            ServletWebRequest webRequest,
+            HttpServletResponse response,
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Nome do objeto") @PathVariable String objectName,
+            @Parameter(description = "Largura desejada em pixels") @RequestParam("w") int width,
+            @Parameter(description = "Formato da variante: jpg ou png") @RequestParam(defaultValue = "jpg") String format,
+            @Parameter(description = "Intervalos de bytes, ex.: bytes=0-1023") @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+
+        LOGGER.info("MinioController | image | bucketName : {}, objectName : {}, width : {}", bucketName, objectName, width);
+
+        if (width <= 0) {
+            throw new FileResponseException("Largura inválida");
+        }
+        String variantName = minioService.getImageVariant(bucketName, objectName, width, StringUtils.lowerCase(format));
+        download(webRequest, response, imageVariantBucket, variantName, range);
+    }
+
+
+    // Copy the requested bytes to the response, from the disk cache when the object is there, otherwise from MinIO
+    private void copyRange(String bucketName, String objectName, Path cached, long offset, Long length, OutputStream out)
+            throws IOException {
+        if (cached != null) {
+            try {
+                StreamCopyUtils.copyFile(cached, offset, length, out);
+                return;
+            } catch (NoSuchFileException e) {
+                LOGGER.info("MinioController | copyRange | objeto removido do cache : {}", objectName);
+            }
+        }
+
+        InputStream inputStream = minioService.downloadObject(bucketName, objectName, offset, length)
+                .orElseThrow(() -> new FileResponseException("Arquivo não encontrado"));
+        StreamCopyUtils.copy(inputStream, out);
+    }
+
+    // A Range is only honoured when If-Range is absent or still names the current version of the object
+    private static boolean ifRangeMatches(String ifRange, StatObjectResponse stat) {
+        if (StringUtils.isBlank(ifRange)) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals("\"" + stat.etag() + "\"");
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return stat.lastModified() != null
+                    && date.toInstant().equals(stat.lastModified().toInstant().truncatedTo(ChronoUnit.SECONDS));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Satisfiable ranges of the Range header; empty when the header is malformed or no range fits the object
+    private static List<ByteRange> parseRanges(String range, long objectSize) {
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+        // Ranges past the end of the object are dropped one by one, the request fails only when none is left
+        List<ByteRange> byteRanges = new ArrayList<>();
+        for (HttpRange httpRange : httpRanges) {
+            try {
+                long start = httpRange.getRangeStart(objectSize);
+                long end = httpRange.getRangeEnd(objectSize);
+                if (start < objectSize && start <= end) {
+                    byteRanges.add(new ByteRange(start, end));
+                    continue;
+                }
+            } catch (IllegalArgumentException e) {
+                // Thrown for a first position at or past the end of the object
+            }
+            LOGGER.info("MinioController | parseRanges | intervalo ignorado : {}", httpRange);
+        }
+        return byteRanges;
+    }
+
+    private record ByteRange(long start, long end) {
+
+        long length() {
+            return end - start + 1;
+        }
+
+        String contentRange(long objectSize) {
+            return "bytes " + start + "-" + end + "/" + objectSize;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.springminio.app.controller;
+
+import com.springminio.app.limit.Bulkhead;
+import com.springminio.app.limit.BulkheadType;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.UploadSession;
+import com.springminio.app.service.UploadSessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/minio/resumable")
+@Tag(name = "Upload Session Controller", description = "Upload retomável de arquivos grandes em pedaços")
+public class UploadSessionController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadSessionController.class);
+
+    private final UploadSessionService uploadSessionService;
+
+
+    @PostMapping("/{bucketName}")
+    @Bulkhead(BulkheadType.UPLOAD)
+    @Operation(summary = "Criar sessão de upload",
+            description = "Abre um upload retomável; o arquivo é enviado depois em pedaços numerados a partir de 1")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sessão criada, com o número de pedaços e o tamanho de cada um"),
+            @ApiResponse(responseCode = "400", description = "Tamanho do arquivo ou do pedaço inválido")
+    })
+    public UploadSession create(
+            @Parameter(description = "Nome do bucket") @PathVariable String bucketName,
+            @Parameter(description = "Nome original do arquivo") @RequestParam String filename,
+            @Parameter(description = "Tamanho do arquivo em bytes") @RequestParam long fileSize,
+            @Parameter(description = "Tamanho de cada pedaço em bytes, no mínimo 5 MB") @RequestParam(required = false) Long chunkSize) {
+
+        LOGGER.info("UploadSessionController | create | bucketName : {}, filename : {}", bucketName, filename);
+
+        return uploadSessionService.create(bucketName, filename, fileSize, chunkSize);
+    }
+
+
+    @PutMapping(value = "/{sessionId}/chunks/{chunkNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Bulkhead(BulkheadType.UPLOAD)
+    @Operation(summary = "Enviar pedaço",
+            description = "Envia um pedaço do arquivo no corpo da requisição; os pedaços podem ser enviados em qualquer ordem e em paralelo, e um pedaço reenviado substitui o anterior")
+    public UploadSession putChunk(
+            @Parameter(description = "Identificador da sessão") @PathVariable String sessionId,
+            @Parameter(description = "Número do pedaço, a partir de 1") @PathVariable int chunkNumber,
+            InputStream content) {
+
+        LOGGER.info("UploadSessionController | putChunk | sessionId : {}, chunkNumber : {}", sessionId, chunkNumber);
+
+        return uploadSessionService.putChunk(sessionId, chunkNumber, content);
+    }
+
+
+    @GetMapping("/{sessionId}")
+    @Bulkhead(BulkheadType.LISTING)
+    @Operation(summary = "Consultar sessão", description = "Informa os pedaços já armazenados, para retomar o upload")
+    public UploadSession status(@Parameter(description = "Identificador da sessão") @PathVariable String sessionId) {
+        LOGGER.info("UploadSessionController | status | sessionId : {}", sessionId);
+        return uploadSessionService.status(sessionId);
+    }
+
+
+    @PostMapping("/{sessionId}/complete")
+    @Bulkhead(BulkheadType.UPLOAD)
+    @Operation(summary = "Concluir upload", description = "Monta o arquivo a partir dos pedaços, quando todos foram enviados")
+    public FileResponse complete(@Parameter(description = "Identificador da sessão") @PathVariable String sessionId) {
+        LOGGER.info("UploadSessionController | complete | sessionId : {}", sessionId);
+        return uploadSessionService.complete(sessionId);
+    }
+
+
+    @DeleteMapping("/{sessionId}")
+    @Bulkhead(BulkheadType.ADMIN)
+    @Operation(summary = "Cancelar upload", description = "Encerra a sessão e descarta os pedaços enviados")
+    public String abort(@Parameter(description = "Identificador da sessão") @PathVariable String sessionId) {
+        LOGGER.info("UploadSessionController | abort | sessionId : {}", sessionId);
+        uploadSessionService.abort(sessionId);
+        return "Sessão " + sessionId + " cancelada";
+    }
+}
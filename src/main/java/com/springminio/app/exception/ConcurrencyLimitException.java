@@ -0,0 +1,15 @@
+package com.springminio.app.exception;
+
+import com.springminio.app.limit.BulkheadType;
+import lombok.Getter;
+
+@Getter
+public class ConcurrencyLimitException extends RuntimeException {
+
+    private final BulkheadType bulkhead;
+
+    public ConcurrencyLimitException(BulkheadType bulkhead, int limit) {
+        super("Limite de " + limit + " requisições simultâneas de " + bulkhead + " atingido");
+        this.bulkhead = bulkhead;
+    }
+}
@@ -1,6 +1,7 @@
 package com.springminio.app.exception.error;
 
 import com.springminio.app.exception.ApiError;
+import com.springminio.app.exception.ConcurrencyLimitException;
 import com.springminio.app.exception.FileResponseException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -127,6 +128,24 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ConcurrencyLimitException.class)
+    public ResponseEntity<Object> handleConcurrencyLimitException(ConcurrencyLimitException ex) {
+        List<String> details = List.of(ex.getMessage());
+
+        ApiError err = new ApiError(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE,
+                LocalDateTime.now(),
+                "Serviço sobrecarregado, tente novamente",
+                details
+        );
+
+        log.warn("Requisição recusada: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(err);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGenericException(Exception ex) {
         List<String> details = List.of(ex.getMessage());
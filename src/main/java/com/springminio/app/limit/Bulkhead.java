@@ -0,0 +1,17 @@
+package com.springminio.app.limit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a controller method inside the concurrency limit of its bulkhead; a request over the
+ * limit is refused with 503 instead of waiting for a thread.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    BulkheadType value();
+}
@@ -0,0 +1,64 @@
+package com.springminio.app.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Optional;
+
+/**
+ * Takes a permit of the {@link Bulkhead} a handler is annotated with before it runs and returns it
+ * once the response is complete. Asynchronous and streamed responses keep the permit across the
+ * async dispatch until the body has been written. The limiter is fed the storage time recorded
+ * in the permit, scaled down for large request bodies, not the time the whole exchange took.
+ */
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = BulkheadInterceptor.class.getName() + ".permit";
+
+    // Request body size that counts as one latency sample, so uploads are compared per MiB sent
+    private static final long SAMPLE_BYTES = 1024 * 1024;
+
+    private final ConcurrencyLimits concurrencyLimits;
+
+    public BulkheadInterceptor(ConcurrencyLimits concurrencyLimits) {
+        this.concurrencyLimits = concurrencyLimits;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch of a request runs the interceptors again, it still holds its first permit
+        if (request.getAttribute(PERMIT) != null || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Bulkhead bulkhead = method.hasMethodAnnotation(Bulkhead.class)
+                ? method.getMethodAnnotation(Bulkhead.class)
+                : method.getBeanType().getAnnotation(Bulkhead.class);
+        if (bulkhead != null) {
+            request.setAttribute(PERMIT, concurrencyLimits.acquire(bulkhead.value()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof ConcurrencyLimits.Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.release(ex == null && response.getStatus() < 500,
+                    Math.max(1, request.getContentLengthLong() / SAMPLE_BYTES));
+        }
+    }
+
+    // Permit held by the request being handled on this thread
+    public static Optional<ConcurrencyLimits.Permit> currentPermit() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(PERMIT, RequestAttributes.SCOPE_REQUEST) instanceof ConcurrencyLimits.Permit permit
+                ? Optional.of(permit)
+                : Optional.empty();
+    }
+}
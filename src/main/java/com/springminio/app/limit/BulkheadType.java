@@ -0,0 +1,20 @@
+package com.springminio.app.limit;
+
+/**
+ * Groups of HTTP operations that get their own concurrency limit, so a burst in one group
+ * cannot take the threads and MinIO connections the others need.
+ */
+public enum BulkheadType {
+
+    /** *  Uploads of one or several files  */
+    UPLOAD,
+
+    /** *  Downloads, ZIP archives and image variants  */
+    DOWNLOAD,
+
+    /** *  Listings, metadata and URLs  */
+    LISTING,
+
+    /** *  Bucket management and deletes  */
+    ADMIN
+}
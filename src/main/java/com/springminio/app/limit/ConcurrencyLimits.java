@@ -0,0 +1,87 @@
+package com.springminio.app.limit;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.ConcurrencyLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One adaptive {@link GradientLimiter} per bulkhead, sized from {@code minio.limits.bulkheads}.
+ * A request takes a {@link Permit} before it runs, records the time of its storage calls in it and
+ * returns it when it ends; when the bulkhead is full it is refused at once. Not registered when
+ * {@code minio.limits.enabled} is false.
+ */
+@Component
+@ConditionalOnProperty(prefix = "minio.limits", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimits {
+
+    private final Map<BulkheadType, GradientLimiter> limiters = new EnumMap<>(BulkheadType.class);
+    private final Map<BulkheadType, Counter> rejections = new EnumMap<>(BulkheadType.class);
+
+    public ConcurrencyLimits(MinioConfig minioConfig, MeterRegistry meterRegistry) {
+        MinioConfig.Limits limits = minioConfig.getLimits();
+        for (BulkheadType type : BulkheadType.values()) {
+            MinioConfig.Limit bulkhead = limits.getBulkheads().getOrDefault(type, new MinioConfig.Limit());
+            GradientLimiter limiter = new GradientLimiter(bulkhead.getInitial(), bulkhead.getMin(), bulkhead.getMax(),
+                    limits.getSmoothing(), limits.getTolerance(), limits.getLongWindow());
+            limiters.put(type, limiter);
+
+            String tag = type.name().toLowerCase();
+            Gauge.builder("minio.limit", limiter, GradientLimiter::getLimit)
+                    .description("Limite atual de requisições simultâneas do bulkhead")
+                    .tag("bulkhead", tag)
+                    .register(meterRegistry);
+            Gauge.builder("minio.limit.in.flight", limiter, GradientLimiter::getInFlight)
+                    .description("Requisições em andamento no bulkhead")
+                    .tag("bulkhead", tag)
+                    .register(meterRegistry);
+            rejections.put(type, Counter.builder("minio.limit.rejected")
+                    .description("Requisições recusadas por limite de concorrência")
+                    .tag("bulkhead", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    public Permit acquire(BulkheadType type) {
+        GradientLimiter limiter = limiters.get(type);
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            rejections.get(type).increment();
+            throw new ConcurrencyLimitException(type, limiter.getLimit());
+        }
+        return new Permit(limiter, inFlight);
+    }
+
+    public static class Permit {
+
+        private final GradientLimiter limiter;
+        private final int inFlight;
+        private final AtomicLong storageNanos = new AtomicLong();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(GradientLimiter limiter, int inFlight) {
+            this.limiter = limiter;
+            this.inFlight = inFlight;
+        }
+
+        public void record(long nanos) {
+            storageNanos.addAndGet(nanos);
+        }
+
+        // The storage time is divided over the samples the request counts for; one that never reached storage says nothing
+        public void release(boolean success, long samples) {
+            if (released.compareAndSet(false, true)) {
+                long nanos = storageNanos.get();
+                limiter.release(nanos / Math.max(1, samples), inFlight, success && nanos > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.springminio.app.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to latency, after the gradient algorithm. The latency of each
+ * completed request feeds a short and a long moving average; while the short one stays within
+ * {@code tolerance} of the long one the limit grows by its square root, and as latency climbs
+ * the limit shrinks in proportion, so queueing shows up as refused requests rather than as
+ * slower ones. The limit always stays between its minimum and maximum.
+ */
+public class GradientLimiter {
+
+    // Requests averaged into the short-term latency
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final int longWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private long samples;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing, double tolerance,
+                           int longWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.longWindow = Math.max(longWindow, SHORT_WINDOW);
+    }
+
+    // Take a slot when fewer requests than the limit are in flight; returns the number in flight including this one
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    // Free the slot; only requests that succeeded say anything about the latency under this load
+    public void release(long rttNanos, int inFlightAtStart, boolean success) {
+        inFlight.decrementAndGet();
+        if (success) {
+            sample(rttNanos, inFlightAtStart);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtStart) {
+        samples++;
+        shortRtt += (rttNanos - shortRtt) / Math.min(samples, SHORT_WINDOW);
+        longRtt += (rttNanos - longRtt) / Math.min(samples, longWindow);
+
+        // After a lasting drop in latency the long average lags behind; let it catch up faster
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // Far below the limit the latency says nothing about it, so it is left as it is
+        double current = limit;
+        if (inFlightAtStart < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+}
@@ -0,0 +1,17 @@
+package com.springminio.app.payload;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Builder
+public class DeleteResponse {
+    String bucketName;
+    int deletedCount;
+    int failedCount;
+    List<ObjectDeleteResult> results;
+}
@@ -1,6 +1,7 @@
 package com.springminio.app.payload;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import java.time.LocalDateTime;
 
@@ -16,4 +17,10 @@ public class FileResponse {
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "GMT")
     private LocalDateTime createdTime;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String error;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Boolean deduplicated;
 }
@@ -0,0 +1,17 @@
+package com.springminio.app.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ObjectDeleteResult {
+    String objectName;
+    boolean deleted;
+    String errorCode;
+    String errorMessage;
+}
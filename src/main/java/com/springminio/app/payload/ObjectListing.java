@@ -0,0 +1,21 @@
+package com.springminio.app.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ObjectListing {
+    String bucketName;
+    String prefix;
+    String delimiter;
+    List<ObjectEntry> objects;
+    boolean truncated;
+    String nextContinuationToken;
+}
@@ -0,0 +1,20 @@
+package com.springminio.app.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PresignedUrls {
+    String bucketName;
+    String prefix;
+    Map<String, String> urls;
+    boolean truncated;
+    String nextContinuationToken;
+}
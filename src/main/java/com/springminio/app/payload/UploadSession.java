@@ -0,0 +1,26 @@
+package com.springminio.app.payload;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Builder
+public class UploadSession {
+    String sessionId;
+    String bucketName;
+    String filename;
+    String contentType;
+    Long fileSize;
+    Long chunkSize;
+    Integer totalChunks;
+    List<Integer> completedChunks;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "GMT")
+    private LocalDateTime expiresAt;
+}
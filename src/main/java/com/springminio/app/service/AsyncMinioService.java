@@ -0,0 +1,30 @@
+package com.springminio.app.service;
+
+import com.springminio.app.payload.FileResponse;
+import io.minio.GetObjectResponse;
+import io.minio.StatObjectResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncMinioService {
+
+    // Upload files in the bucket, the content type is detected from the file itself
+    CompletableFuture<FileResponse> putObject(MultipartFile multipartFile, String bucketName);
+
+    // Download file from bucket
+    CompletableFuture<GetObjectResponse> getObject(String bucketName, String objectName);
+
+    // Get metadata of the file in bucket
+    CompletableFuture<StatObjectResponse> statObject(String bucketName, String objectName);
+
+    // List all object names in the bucket
+    CompletableFuture<List<String>> listObjectNames(String bucketName);
+
+    // Delete file in bucket
+    CompletableFuture<Boolean> removeObject(String bucketName, String objectName);
+
+    // Get file path from bucket
+    CompletableFuture<String> getObjectUrl(String bucketName, String objectName);
+}
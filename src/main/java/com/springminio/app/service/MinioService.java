@@ -1,12 +1,21 @@
 package com.springminio.app.service;
 
+import com.springminio.app.payload.DeleteResponse;
 import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.payload.ObjectListing;
+import com.springminio.app.payload.PresignedUrls;
+import io.minio.StatObjectResponse;
 import io.minio.messages.Bucket;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MinioService {
 
@@ -28,18 +37,45 @@ public interface MinioService {
     // List all object names in the bucket
     List<String> listObjectNames(String bucketName);
 
-    // Upload files in the bucket
-    FileResponse putObject(MultipartFile multipartFile, String bucketName, String fileType);
+    // List one page of objects under a prefix
+    ObjectListing listObjects(String bucketName, String prefix, String delimiter, int maxKeys, String continuationToken);
+
+    // Stream all objects under a prefix
+    Stream<ObjectEntry> streamObjects(String bucketName, String prefix, String delimiter);
+
+    // Upload files in the bucket, the content type is detected from the file itself
+    FileResponse putObject(MultipartFile multipartFile, String bucketName);
+
+    // Upload several files in the bucket at once, one response per file
+    List<FileResponse> putObjects(List<MultipartFile> multipartFiles, String bucketName);
 
     // Download file from bucket
     Optional<InputStream> downloadObject(String bucketName, String objectName);
 
+    // Download a byte range of a file from bucket, length null reads to the end
+    Optional<InputStream> downloadObject(String bucketName, String objectName, long offset, Long length);
+
+    // Write the given files of a bucket to the output stream as a ZIP archive
+    void writeZip(String bucketName, Stream<String> objectNames, OutputStream outputStream) throws IOException;
+
+    // Name of a resized variant of an image in the variant bucket, generated and stored there on first request
+    String getImageVariant(String bucketName, String objectName, int width, String format);
+
+    // Get metadata of the file in bucket
+    Optional<StatObjectResponse> statObject(String bucketName, String objectName);
+
+    // Get a local copy of a hot file from the disk cache, loading it on a miss only when load is set
+    Optional<Path> cachedObject(String bucketName, String objectName, StatObjectResponse stat, boolean load);
+
     // Delete file in bucket
     boolean removeObject(String bucketName, String objectName);
 
-    // Delete files in bucket
-    boolean removeListObject(String bucketName, List<String> objectNameList);
+    // Delete files in bucket, reporting the outcome of every file
+    DeleteResponse removeListObject(String bucketName, List<String> objectNameList);
 
     // Get file path from bucket
     String getObjectUrl(String bucketName,String objectName);
+
+    // Get file paths of one page of files under a prefix of the bucket
+    PresignedUrls getObjectUrls(String bucketName, String prefix, int maxKeys, String continuationToken);
 }
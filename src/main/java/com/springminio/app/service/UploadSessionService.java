@@ -0,0 +1,24 @@
+package com.springminio.app.service;
+
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.UploadSession;
+
+import java.io.InputStream;
+
+public interface UploadSessionService {
+
+    // Open a resumable upload of a file of the given size, chunkSize null for the configured one
+    UploadSession create(String bucketName, String filename, long fileSize, Long chunkSize);
+
+    // Store one chunk, numbered from 1; a chunk sent again replaces the previous one
+    UploadSession putChunk(String sessionId, int chunkNumber, InputStream content);
+
+    // Session with the chunks MinIO already holds, to resume after a dropped connection
+    UploadSession status(String sessionId);
+
+    // Assemble the chunks into the object once every one of them is stored
+    FileResponse complete(String sessionId);
+
+    // Abandon the session and discard the chunks stored so far
+    void abort(String sessionId);
+}
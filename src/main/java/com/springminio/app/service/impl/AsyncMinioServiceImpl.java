@@ -0,0 +1,213 @@
+package com.springminio.app.service.impl;
+
+import com.springminio.app.cache.BucketRegistry;
+import com.springminio.app.cache.ContentIndex;
+import com.springminio.app.cache.ImageVariantIndex;
+import com.springminio.app.cache.ObjectDiskCache;
+import com.springminio.app.cache.PresignedUrlCache;
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.service.AsyncMinioService;
+import com.springminio.app.util.FileTypeUtils;
+import com.springminio.app.util.UploadUtil;
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+@Service
+@RequiredArgsConstructor
+public class AsyncMinioServiceImpl implements AsyncMinioService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncMinioServiceImpl.class);
+
+    private static final Set<String> NOT_FOUND_CODES = Set.of("NoSuchKey", "NoSuchBucket", "NoSuchObject");
+
+    private final MinioAsyncClient minioAsyncClient;
+    private final ExecutorService minioAsyncExecutor;
+    private final MinioConfig minioProperties;
+    private final PresignedUrlCache presignedUrlCache;
+    private final BucketRegistry bucketRegistry;
+    private final ContentIndex contentIndex;
+    private final ObjectDiskCache objectDiskCache;
+    private final ImageVariantIndex imageVariantIndex;
+    private final UploadUtil uploadUtil;
+
+
+    @Override
+    public CompletableFuture<FileResponse> putObject(MultipartFile multipartFile, String bucketName) {
+        LOGGER.info("AsyncMinioServiceImpl | putObject is called");
+
+        String bucket = StringUtils.isNotBlank(bucketName) ? bucketName : minioProperties.getBucketName();
+        String fileName = multipartFile.getOriginalFilename();
+
+        // The type is sniffed from the head of the same stream that is uploaded, so the file is read once
+        FileTypeUtils.TypedStream upload;
+        try {
+            upload = FileTypeUtils.detect(multipartFile.getInputStream(), fileName);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String fileType = upload.contentType();
+        if (fileType == null) {
+            closeQuietly(upload.inputStream());
+            throw new FileResponseException("Tipo de arquivo não suportado");
+        }
+
+        // Stored the same way as a blocking upload, deduplicated and compressed as configured, on an executor thread
+        return makeBucketIfMissing(bucket)
+                .thenApplyAsync(ignored -> {
+                    try {
+                        return uploadUtil.store(bucket, multipartFile, upload, fileType);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, minioAsyncExecutor)
+                .whenComplete((response, error) -> closeQuietly(upload.inputStream()));
+    }
+
+    @Override
+    public CompletableFuture<GetObjectResponse> getObject(String bucketName, String objectName) {
+        LOGGER.info("AsyncMinioServiceImpl | getObject is called");
+
+        return translated(call(() -> minioAsyncClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .build())));
+    }
+
+    @Override
+    public CompletableFuture<StatObjectResponse> statObject(String bucketName, String objectName) {
+        LOGGER.info("AsyncMinioServiceImpl | statObject is called");
+
+        return translated(call(() -> minioAsyncClient.statObject(
+                StatObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .build())));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listObjectNames(String bucketName) {
+        LOGGER.info("AsyncMinioServiceImpl | listObjectNames is called");
+
+        // The listing iterator fetches its pages while being consumed, so it runs on the executor
+        return translated(CompletableFuture.supplyAsync(() -> StreamSupport.stream(
+                        minioAsyncClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).build()).spliterator(),
+                        false)
+                .map(result -> {
+                    try {
+                        return result.get().objectName();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .toList(), minioAsyncExecutor));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeObject(String bucketName, String objectName) {
+        LOGGER.info("AsyncMinioServiceImpl | removeObject is called");
+
+        objectDiskCache.evict(bucketName, objectName);
+        presignedUrlCache.evict(bucketName, objectName);
+        // Deduplicated content is shared by every upload of it, so only its last reference removes it
+        CompletableFuture<Boolean> removal = contentIndex.isContentName(objectName)
+                ? CompletableFuture.supplyAsync(() -> contentIndex.release(bucketName, objectName), minioAsyncExecutor)
+                : call(() -> minioAsyncClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectName)
+                                .build()))
+                        .handle((ignored, error) -> {
+                            if (error != null) {
+                                LOGGER.error("Erro ao remover objeto: ", error);
+                                return false;
+                            }
+                            return true;
+                        });
+        return removal.thenApplyAsync(removed -> {
+            if (removed) {
+                imageVariantIndex.removeAll(bucketName, objectName);
+            }
+            return removed;
+        }, minioAsyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<String> getObjectUrl(String bucketName, String objectName) {
+        LOGGER.info("AsyncMinioServiceImpl | getObjectUrl is called");
+
+        // Presigning may look up the bucket region, which is a blocking call
+        return translated(CompletableFuture.supplyAsync(() -> presignedUrlCache.get(bucketName, objectName, () -> {
+            try {
+                return minioAsyncClient.getPresignedObjectUrl(
+                        GetPresignedObjectUrlArgs.builder()
+                                .method(Method.GET)
+                                .bucket(bucketName)
+                                .object(objectName)
+                                .expiry((int) minioProperties.getPresign().getExpiry().toSeconds(), TimeUnit.SECONDS)
+                                .build());
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }), minioAsyncExecutor));
+    }
+
+    private CompletableFuture<Void> makeBucketIfMissing(String bucketName) {
+        if (bucketRegistry.contains(bucketName)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return call(() -> minioAsyncClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()))
+                .thenCompose(found -> found
+                        ? CompletableFuture.<Void>completedFuture(null)
+                        : call(() -> minioAsyncClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build())))
+                .thenRun(() -> bucketRegistry.register(bucketName));
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            LOGGER.warn("AsyncMinioServiceImpl | upload | erro ao fechar stream: {}", e.getMessage());
+        }
+    }
+
+    // MinioAsyncClient throws request-building errors directly; surface them through the future instead
+    private static <T> CompletableFuture<T> call(Callable<CompletableFuture<T>> request) {
+        try {
+            return request.call();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Missing buckets and objects become the same not-found error as the blocking API
+    private static <T> CompletableFuture<T> translated(CompletableFuture<T> future) {
+        return future.exceptionallyCompose(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ErrorResponseException e && NOT_FOUND_CODES.contains(e.errorResponse().code())) {
+                return CompletableFuture.failedFuture(new FileResponseException("Arquivo não encontrado"));
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+}
@@ -1,9 +1,24 @@
 package com.springminio.app.service.impl;
 
+import com.springminio.app.cache.ContentIndex;
+import com.springminio.app.cache.ImageVariantIndex;
+import com.springminio.app.cache.ObjectDiskCache;
+import com.springminio.app.cache.PresignedUrlCache;
 import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.payload.DeleteResponse;
 import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.ObjectDeleteResult;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.payload.ObjectListing;
+import com.springminio.app.payload.PresignedUrls;
 import com.springminio.app.service.MinioService;
+import com.springminio.app.util.FileTypeUtils;
+import com.springminio.app.util.ImageUtil;
 import com.springminio.app.util.MinioUtil;
+import com.springminio.app.util.ParallelUtils;
+import com.springminio.app.util.UploadUtil;
+import io.minio.StatObjectResponse;
 import io.minio.messages.Bucket;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -13,11 +28,27 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.time.LocalDateTime;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,137 +58,407 @@ public class MinioServiceImpl implements MinioService {
 
     private final MinioUtil minioUtil;
     private final MinioConfig minioProperties;
+    private final ObjectDiskCache objectDiskCache;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ContentIndex contentIndex;
+    private final ExecutorService minioAsyncExecutor;
+    private final ImageUtil imageUtil;
+    private final ImageVariantIndex imageVariantIndex;
+    private final UploadUtil uploadUtil;
+
+    private final Map<String, CompletableFuture<String>> generatingVariants = new ConcurrentHashMap<>();
 
 
     @Override
     public boolean bucketExists(String bucketName) {
-        LOGGER.info("MinioServiceImpl | bucketExists is called");
+        LOGGER.debug("MinioServiceImpl | bucketExists is called");
 
         return minioUtil.bucketExists(bucketName);
     }
 
     @Override
     public void makeBucket(String bucketName) {
-        LOGGER.info("MinioServiceImpl | makeBucket is called");
+        LOGGER.debug("MinioServiceImpl | makeBucket is called");
 
-        LOGGER.info("MinioServiceImpl | makeBucket | bucketName : " + bucketName);
+        LOGGER.debug("MinioServiceImpl | makeBucket | bucketName : {}", bucketName);
 
         minioUtil.makeBucket(bucketName);
     }
 
     @Override
     public List<String> listBucketName() {
-        LOGGER.info("MinioServiceImpl | listBucketName is called");
+        LOGGER.debug("MinioServiceImpl | listBucketName is called");
         return minioUtil.listBucketNames();
     }
 
     @Override
     public List<Bucket> listBuckets() {
-        LOGGER.info("MinioServiceImpl | listBuckets is called");
+        LOGGER.debug("MinioServiceImpl | listBuckets is called");
         return minioUtil.listBuckets();
     }
 
     @Override
     public boolean removeBucket(String bucketName) {
-        LOGGER.info("MinioServiceImpl | removeBucket is called");
+        LOGGER.debug("MinioServiceImpl | removeBucket is called");
 
-        LOGGER.info("MinioServiceImpl | removeBucket | bucketName : " + bucketName);
+        LOGGER.debug("MinioServiceImpl | removeBucket | bucketName : {}", bucketName);
 
         return minioUtil.removeBucket(bucketName);
     }
 
     @Override
     public List<String> listObjectNames(String bucketName) {
-        LOGGER.info("MinioServiceImpl | listObjectNames is called");
+        LOGGER.debug("MinioServiceImpl | listObjectNames is called");
 
-        LOGGER.info("MinioServiceImpl | listObjectNames | bucketName : " + bucketName);
+        LOGGER.debug("MinioServiceImpl | listObjectNames | bucketName : {}", bucketName);
 
         return minioUtil.listObjectNames(bucketName);
     }
 
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix, String delimiter, int maxKeys,
+                                     String continuationToken) {
+        LOGGER.debug("MinioServiceImpl | listObjects is called");
+
+        LOGGER.debug("MinioServiceImpl | listObjects | bucketName : {}", bucketName);
+
+        return minioUtil.listObjects(bucketName, prefix, delimiter, maxKeys, continuationToken);
+    }
+
+    @Override
+    public Stream<ObjectEntry> streamObjects(String bucketName, String prefix, String delimiter) {
+        LOGGER.debug("MinioServiceImpl | streamObjects is called");
+
+        LOGGER.debug("MinioServiceImpl | streamObjects | bucketName : {}", bucketName);
+
+        return minioUtil.streamObjects(bucketName, prefix, delimiter);
+    }
+
     @SneakyThrows
     @Override
-    public FileResponse putObject(MultipartFile multipartFile, String bucketName, String fileType) {
+    public FileResponse putObject(MultipartFile multipartFile, String bucketName) {
 
-        LOGGER.info("MinioServiceImpl | putObject is called");
+        LOGGER.debug("MinioServiceImpl | putObject is called");
 
-        try {
-            bucketName = StringUtils.isNotBlank(bucketName) ? bucketName : minioProperties.getBucketName();
+        String fileName = multipartFile.getOriginalFilename();
+        LOGGER.debug("MinioServiceImpl | putObject | fileName : {}", fileName);
 
-            LOGGER.info("MinioServiceImpl | putObject | bucketName : " + bucketName);
+        // The type is sniffed from the head of the same stream that is uploaded, so the file is read once
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            FileTypeUtils.TypedStream upload = FileTypeUtils.detect(inputStream, fileName);
+            String fileType = Optional.ofNullable(upload.contentType())
+                    .orElseThrow(() -> new FileResponseException("Tipo de arquivo não suportado"));
 
-            if (!this.bucketExists(bucketName)) {
-                this.makeBucket(bucketName);
-                LOGGER.info("MinioServiceImpl | putObject | bucketName : " + bucketName + " created");
-            }
+            try {
+                bucketName = StringUtils.isNotBlank(bucketName) ? bucketName : minioProperties.getBucketName();
 
-            String fileName = multipartFile.getOriginalFilename();
-            LOGGER.info("MinioServiceImpl | getFileType | fileName : " + fileName);
+                LOGGER.debug("MinioServiceImpl | putObject | bucketName : {}", bucketName);
 
-            Long fileSize = multipartFile.getSize();
-            LOGGER.info("MinioServiceImpl | getFileType | fileSize : " + fileSize);
+                if (!this.bucketExists(bucketName)) {
+                    this.makeBucket(bucketName);
+                    LOGGER.debug("MinioServiceImpl | putObject | bucketName : {} created", bucketName);
+                }
 
-            String objectName = UUID.randomUUID().toString().replaceAll("-", "")
-                    + fileName.substring(fileName.lastIndexOf("."));
-            LOGGER.info("MinioServiceImpl | getFileType | objectName : " + objectName);
+                Long fileSize = multipartFile.getSize();
+                LOGGER.debug("MinioServiceImpl | putObject | fileSize : {}", fileSize);
 
-            LocalDateTime createdTime = LocalDateTime.now();
-            LOGGER.info("MinioServiceImpl | getFileType | createdTime : " + createdTime);
+                FileResponse response = uploadUtil.store(bucketName, multipartFile, upload, fileType);
 
-            minioUtil.putObject(bucketName, multipartFile, objectName,fileType);
+                LOGGER.debug("MinioServiceImpl | putObject | url : {}/{}/{}", minioProperties.getEndpoint(), bucketName,
+                        response.getFilename());
 
-            LOGGER.info("MinioServiceImpl | getFileType | url : " + minioProperties.getEndpoint()+"/"+bucketName+"/"+objectName);
+                return response;
 
-            return FileResponse.builder()
-                    .filename(objectName)
-                    .fileSize(fileSize)
-                    .contentType(fileType)
-                    .createdTime(createdTime)
-                    .build();
+            } catch (Exception e) {
+                LOGGER.error("MinioServiceImpl | putObject | Exception : {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public List<FileResponse> putObjects(List<MultipartFile> multipartFiles, String bucketName) {
+        LOGGER.debug("MinioServiceImpl | putObjects is called");
+
+        // The bucket is checked once for the whole batch, not once per file
+        String bucket = StringUtils.isNotBlank(bucketName) ? bucketName : minioProperties.getBucketName();
+        if (!this.bucketExists(bucket)) {
+            this.makeBucket(bucket);
+        }
+        LOGGER.debug("MinioServiceImpl | putObjects | bucketName : {}, files : {}", bucket, multipartFiles.size());
+
+        return ParallelUtils.map(multipartFiles, minioProperties.getUpload().getConcurrency(), minioAsyncExecutor,
+                multipartFile -> uploadOne(bucket, multipartFile));
+    }
 
+    // Upload one file of a bulk upload; a failure is reported in its response instead of failing the batch
+    private FileResponse uploadOne(String bucketName, MultipartFile multipartFile) {
+        String fileName = multipartFile.getOriginalFilename();
+        try {
+            if (multipartFile.isEmpty()) {
+                throw new FileResponseException("Arquivo não pode estar vazio");
+            }
+            try (InputStream inputStream = multipartFile.getInputStream()) {
+                FileTypeUtils.TypedStream upload = FileTypeUtils.detect(inputStream, fileName);
+                String fileType = Optional.ofNullable(upload.contentType())
+                        .orElseThrow(() -> new FileResponseException("Tipo de arquivo não suportado"));
+                return uploadUtil.store(bucketName, multipartFile, upload, fileType);
+            }
         } catch (Exception e) {
-            LOGGER.info("MinioServiceImpl | getFileType | Exception : " + e.getMessage());
-            return null;
+            LOGGER.error("Erro ao fazer upload do arquivo {}: {}", fileName, e.getMessage());
+            return FileResponse.builder()
+                    .filename(fileName)
+                    .fileSize(multipartFile.getSize())
+                    .error(e instanceof FileResponseException ? e.getMessage() : "Falha ao enviar o arquivo")
+                    .build();
         }
     }
 
     @Override
     public Optional<InputStream> downloadObject(String bucketName, String objectName) {
-        LOGGER.info("MinioServiceImpl | downloadObject is called");
+        LOGGER.debug("MinioServiceImpl | downloadObject is called");
 
-        LOGGER.info("MinioServiceImpl | downloadObject | bucketName : " + bucketName);
-        LOGGER.info("MinioServiceImpl | downloadObject | objectName : " + objectName);
+        LOGGER.debug("MinioServiceImpl | downloadObject | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | downloadObject | objectName : {}", objectName);
 
         return minioUtil.getObject(bucketName,objectName);
     }
 
     @Override
-    public boolean removeObject(String bucketName, String objectName) {
-        LOGGER.info("MinioServiceImpl | removeObject is called");
+    public Optional<InputStream> downloadObject(String bucketName, String objectName, long offset, Long length) {
+        LOGGER.debug("MinioServiceImpl | downloadObject is called");
 
-        LOGGER.info("MinioServiceImpl | removeObject | bucketName : " + bucketName);
-        LOGGER.info("MinioServiceImpl | removeObject | objectName : " + objectName);
+        LOGGER.debug("MinioServiceImpl | downloadObject | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | downloadObject | objectName : {}", objectName);
 
-        return minioUtil.removeObject(bucketName, objectName);
+        return minioUtil.getObject(bucketName, objectName, offset, length);
     }
 
     @Override
-    public boolean removeListObject(String bucketName, List<String> objectNameList) {
-        LOGGER.info("MinioServiceImpl | removeListObject is called");
+    public void writeZip(String bucketName, Stream<String> objectNames, OutputStream outputStream) throws IOException {
+        LOGGER.debug("MinioServiceImpl | writeZip is called");
 
-        LOGGER.info("MinioServiceImpl | removeObject | bucketName : " + bucketName);
-        LOGGER.info("MinioServiceImpl | removeObject | objectNameList size : " + objectNameList.size());
+        // The next objects are opened while the current one is written, so the archive never waits on MinIO latency
+        int prefetch = Math.max(1, minioProperties.getZip().getPrefetch());
+        Iterator<String> names = objectNames.distinct().iterator();
+        Deque<PendingObject> window = new ArrayDeque<>(prefetch);
+        int written = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        zip.setLevel(Deflater.BEST_SPEED);
+        try {
+            fillWindow(bucketName, names, window, prefetch);
+            while (!window.isEmpty()) {
+                // The window only holds the objects ahead, the one taken out is the one being written
+                PendingObject next = window.poll();
+                fillWindow(bucketName, names, window, prefetch);
+
+                Optional<InputStream> stream = next.stream().join();
+                if (stream.isEmpty()) {
+                    LOGGER.warn("MinioServiceImpl | writeZip | objeto ignorado : {}", next.objectName());
+                    continue;
+                }
+                try (InputStream inputStream = stream.get()) {
+                    zip.putNextEntry(new ZipEntry(next.objectName()));
+                    inputStream.transferTo(zip);
+                    zip.closeEntry();
+                }
+                written++;
+            }
+            // The response stream itself is closed by the container
+            zip.finish();
+            LOGGER.debug("MinioServiceImpl | writeZip | {} objetos escritos", written);
+        } finally {
+            // Streams opened ahead are released when the client goes away mid-archive
+            window.forEach(pending -> pending.stream().thenAccept(stream -> stream.ifPresent(MinioServiceImpl::closeQuietly)));
+        }
+    }
+
+    private void fillWindow(String bucketName, Iterator<String> names, Deque<PendingObject> window, int size) {
+        while (window.size() < size && names.hasNext()) {
+            String objectName = names.next();
+            window.add(new PendingObject(objectName, CompletableFuture.supplyAsync(
+                    () -> minioUtil.getObjectContent(bucketName, objectName), minioAsyncExecutor)));
+        }
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            LOGGER.warn("MinioServiceImpl | closeQuietly | {}", e.getMessage());
+        }
+    }
 
-        return minioUtil.removeObject(bucketName,objectNameList);
+    private record PendingObject(String objectName, CompletableFuture<Optional<InputStream>> stream) {
+    }
+
+    @Override
+    public String getImageVariant(String bucketName, String objectName, int width, String format) {
+        LOGGER.debug("MinioServiceImpl | getImageVariant | objectName : {}, width : {}, format : {}", objectName, width, format);
+
+        if (!ImageUtil.FORMATS.containsKey(format)) {
+            throw new FileResponseException("Formato de imagem não suportado");
+        }
+        MinioConfig.Image image = minioProperties.getImage();
+        int variantWidth = image.getWidths().stream()
+                .sorted()
+                .filter(allowed -> allowed >= width)
+                .findFirst()
+                .orElseGet(() -> Collections.max(image.getWidths()));
+
+        StatObjectResponse source = minioUtil.statObject(bucketName, objectName)
+                .orElseThrow(() -> new FileResponseException("Arquivo não encontrado"));
+        String variantName = ImageVariantIndex.variantName(bucketName, objectName, source.etag(), variantWidth, format);
+        if (imageVariantIndex.exists(bucketName, objectName, variantName)) {
+            return variantName;
+        }
+
+        // Concurrent requests for the same variant wait for a single generation
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        CompletableFuture<String> running = generatingVariants.putIfAbsent(variantName, generation);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof FileResponseException cause
+                        ? cause
+                        : new FileResponseException("Erro ao gerar variante da imagem");
+            }
+        }
+
+        try {
+            InputStream content = minioUtil.getObjectContent(bucketName, objectName)
+                    .orElseThrow(() -> new FileResponseException("Arquivo não encontrado"));
+            byte[] variant;
+            try (InputStream inputStream = content) {
+                variant = imageUtil.resize(inputStream, variantWidth, format);
+            }
+            imageVariantIndex.store(bucketName, objectName, variantName, variant, ImageUtil.FORMATS.get(format));
+            LOGGER.debug("MinioServiceImpl | getImageVariant | variante gerada : {}, {} bytes", variantName, variant.length);
+
+            generation.complete(variantName);
+            return variantName;
+        } catch (FileResponseException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Erro ao gerar variante da imagem: ", e);
+            generation.completeExceptionally(e);
+            throw new FileResponseException("Erro ao gerar variante da imagem");
+        } finally {
+            generatingVariants.remove(variantName, generation);
+        }
+    }
+
+    @Override
+    public Optional<StatObjectResponse> statObject(String bucketName, String objectName) {
+        LOGGER.debug("MinioServiceImpl | statObject is called");
+
+        LOGGER.debug("MinioServiceImpl | statObject | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | statObject | objectName : {}", objectName);
+
+        return minioUtil.statObject(bucketName, objectName);
+    }
+
+    @Override
+    public Optional<Path> cachedObject(String bucketName, String objectName, StatObjectResponse stat, boolean load) {
+        if (!load) {
+            return objectDiskCache.find(bucketName, objectName, stat.etag());
+        }
+        return objectDiskCache.get(bucketName, objectName, stat.etag(), stat.size(),
+                () -> minioUtil.getObject(bucketName, objectName, 0, null));
+    }
+
+    @Override
+    public boolean removeObject(String bucketName, String objectName) {
+        LOGGER.debug("MinioServiceImpl | removeObject is called");
+
+        LOGGER.debug("MinioServiceImpl | removeObject | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | removeObject | objectName : {}", objectName);
+
+        objectDiskCache.evict(bucketName, objectName);
+        presignedUrlCache.evict(bucketName, objectName);
+        // Deduplicated content is shared by every upload of it, so only its last reference removes it
+        boolean removed = contentIndex.release(bucketName, objectName);
+        if (removed) {
+            imageVariantIndex.removeAll(bucketName, objectName);
+        }
+        return removed;
+    }
+
+    @Override
+    public DeleteResponse removeListObject(String bucketName, List<String> objectNameList) {
+        LOGGER.debug("MinioServiceImpl | removeListObject is called");
+
+        LOGGER.debug("MinioServiceImpl | removeObject | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | removeObject | objectNameList size : {}", objectNameList.size());
+
+        objectNameList.forEach(objectName -> {
+            objectDiskCache.evict(bucketName, objectName);
+            presignedUrlCache.evict(bucketName, objectName);
+        });
+
+        DeleteResponse response = removeObjects(bucketName, objectNameList);
+        List<String> removed = response.getResults().stream()
+                .filter(ObjectDeleteResult::isDeleted)
+                .map(ObjectDeleteResult::getObjectName)
+                .toList();
+        ParallelUtils.map(removed, minioProperties.getDelete().getConcurrency(), minioAsyncExecutor, objectName -> {
+            imageVariantIndex.removeAll(bucketName, objectName);
+            return objectName;
+        });
+        return response;
+    }
+
+    private DeleteResponse removeObjects(String bucketName, List<String> objectNameList) {
+        // Plain objects go in multi-object delete batches, deduplicated ones drop one reference each
+        Map<Boolean, List<String>> byKind = objectNameList.stream()
+                .distinct()
+                .collect(Collectors.partitioningBy(contentIndex::isContentName));
+        if (byKind.get(true).isEmpty()) {
+            return minioUtil.removeObject(bucketName, objectNameList);
+        }
+        DeleteResponse plain = byKind.get(false).isEmpty()
+                ? DeleteResponse.builder().bucketName(bucketName).results(List.of()).build()
+                : minioUtil.removeObject(bucketName, byKind.get(false));
+        List<ObjectDeleteResult> released = ParallelUtils.map(byKind.get(true),
+                minioProperties.getDelete().getConcurrency(), minioAsyncExecutor,
+                objectName -> contentIndex.release(bucketName, objectName)
+                        ? ObjectDeleteResult.builder().objectName(objectName).deleted(true).build()
+                        : ObjectDeleteResult.builder().objectName(objectName).errorCode("ReleaseFailed")
+                                .errorMessage("Falha ao remover referência do objeto").build());
+
+        Map<String, ObjectDeleteResult> results = new HashMap<>();
+        plain.getResults().forEach(result -> results.put(result.getObjectName(), result));
+        released.forEach(result -> results.put(result.getObjectName(), result));
+        List<ObjectDeleteResult> ordered = objectNameList.stream().distinct().map(results::get).toList();
+        int deleted = (int) ordered.stream().filter(ObjectDeleteResult::isDeleted).count();
+        return DeleteResponse.builder()
+                .bucketName(bucketName)
+                .deletedCount(deleted)
+                .failedCount(ordered.size() - deleted)
+                .results(ordered)
+                .build();
     }
 
     @Override
     public String getObjectUrl(String bucketName, String objectName) {
-        LOGGER.info("MinioServiceImpl | getObjectUrl is called");
+        LOGGER.debug("MinioServiceImpl | getObjectUrl is called");
 
-        LOGGER.info("MinioServiceImpl | getObjectUrl | bucketName : " + bucketName);
-        LOGGER.info("MinioServiceImpl | getObjectUrl | objectName : " + objectName);
+        LOGGER.debug("MinioServiceImpl | getObjectUrl | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | getObjectUrl | objectName : {}", objectName);
 
         return minioUtil.getObjectUrl(bucketName, objectName);
     }
+
+    @Override
+    public PresignedUrls getObjectUrls(String bucketName, String prefix, int maxKeys, String continuationToken) {
+        LOGGER.debug("MinioServiceImpl | getObjectUrls is called");
+
+        LOGGER.debug("MinioServiceImpl | getObjectUrls | bucketName : {}", bucketName);
+        LOGGER.debug("MinioServiceImpl | getObjectUrls | prefix : {}", prefix);
+
+        return minioUtil.getObjectUrls(bucketName, prefix, maxKeys, continuationToken);
+    }
 }
@@ -0,0 +1,335 @@
+package com.springminio.app.service.impl;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.UploadSession;
+import com.springminio.app.service.UploadSessionService;
+import com.springminio.app.util.FileTypeUtils;
+import com.springminio.app.util.MinioMultipartClient;
+import com.springminio.app.util.MinioUtil;
+import io.minio.ObjectWriteArgs;
+import io.minio.messages.Part;
+import io.minio.messages.Upload;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable uploads on top of an S3 multipart upload: a session maps to one upload id, every chunk
+ * is stored as the part with its number, and the client can ask which parts MinIO holds to resume
+ * after a dropped connection. Sessions live in memory and are aborted after
+ * {@code minio.resumable.expiry} without a request; uploads whose session was lost in a restart are
+ * found through ListMultipartUploads under {@code minio.resumable.prefix} and aborted once they have not
+ * received a part for the same expiry.
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadSessionServiceImpl.class);
+
+    private final MinioMultipartClient multipartClient;
+    private final MinioUtil minioUtil;
+    private final MinioConfig minioProperties;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // Bytes of the chunks held in memory, so concurrent chunks never take more than minio.resumable.max-buffered-bytes
+    private Semaphore bufferedBytes;
+
+
+    @PostConstruct
+    void init() {
+        MinioConfig.Resumable resumable = minioProperties.getResumable();
+        if (resumable.getMaxBufferedBytes() > Integer.MAX_VALUE || resumable.getMaxChunkSize() > resumable.getMaxBufferedBytes()) {
+            throw new IllegalStateException("minio.resumable.max-buffered-bytes deve estar entre max-chunk-size e "
+                    + Integer.MAX_VALUE + " bytes");
+        }
+        // Without a prefix the cleanup of abandoned uploads would reach uploads of any other client of the bucket
+        if (StringUtils.isBlank(resumable.getPrefix())) {
+            throw new IllegalStateException("minio.resumable.prefix não pode ser vazio");
+        }
+        bufferedBytes = new Semaphore((int) resumable.getMaxBufferedBytes(), true);
+    }
+
+    @Override
+    public UploadSession create(String bucketName, String filename, long fileSize, Long chunkSize) {
+        LOGGER.debug("UploadSessionServiceImpl | create | filename : {}, fileSize : {}", filename, fileSize);
+
+        MinioConfig.Resumable resumable = minioProperties.getResumable();
+        long chunk = chunkSize != null ? chunkSize : resumable.getChunkSize();
+        if (StringUtils.isBlank(filename) || fileSize <= 0) {
+            throw new FileResponseException("Nome e tamanho do arquivo são obrigatórios");
+        }
+        // S3 refuses parts under 5 MB except the last one, and more than 10000 parts
+        if (chunk < ObjectWriteArgs.MIN_MULTIPART_SIZE || chunk > resumable.getMaxChunkSize()) {
+            throw new FileResponseException("Tamanho do pedaço deve estar entre " + ObjectWriteArgs.MIN_MULTIPART_SIZE
+                    + " e " + resumable.getMaxChunkSize() + " bytes");
+        }
+        long totalChunks = (fileSize + chunk - 1) / chunk;
+        if (totalChunks > ObjectWriteArgs.MAX_MULTIPART_COUNT) {
+            throw new FileResponseException("Arquivo excede " + ObjectWriteArgs.MAX_MULTIPART_COUNT
+                    + " pedaços, aumente o tamanho do pedaço");
+        }
+        if (sessions.size() >= resumable.getMaxSessions()) {
+            throw new FileResponseException("Limite de sessões de upload atingido");
+        }
+
+        String bucket = StringUtils.isNotBlank(bucketName) ? bucketName : minioProperties.getBucketName();
+        if (!minioUtil.bucketExists(bucket)) {
+            minioUtil.makeBucket(bucket);
+        }
+        String objectName = resumable.getPrefix() + MinioUtil.randomObjectName(filename);
+        String contentType = MediaTypeFactory.getMediaType(filename)
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        String uploadId = multipartClient.initiate(bucket, objectName, contentType).join();
+
+        Session session = new Session(UUID.randomUUID().toString(), bucket, filename, objectName, contentType,
+                uploadId, fileSize, chunk, (int) totalChunks);
+        session.touch(resumable);
+        sessions.put(session.id, session);
+        LOGGER.info("UploadSessionServiceImpl | create | sessão {} com {} pedaços", session.id, totalChunks);
+        return session.toPayload(List.of());
+    }
+
+    @Override
+    public UploadSession putChunk(String sessionId, int chunkNumber, InputStream content) {
+        Session session = session(sessionId);
+        if (chunkNumber < 1 || chunkNumber > session.totalChunks) {
+            throw new FileResponseException("Pedaço " + chunkNumber + " fora do intervalo 1-" + session.totalChunks);
+        }
+
+        // Every chunk has its exact size, so the whole chunk is read and nothing more is accepted
+        int expected = (int) Math.min(session.chunkSize, session.fileSize - (chunkNumber - 1) * session.chunkSize);
+        // The part is signed with the digest of its content, so it is read whole before it is sent
+        bufferedBytes.acquireUninterruptibly(expected);
+        try {
+            byte[] data;
+            try {
+                data = content.readNBytes(expected);
+                if (data.length != expected || content.read() != -1) {
+                    throw new FileResponseException("Pedaço " + chunkNumber + " deve ter " + expected + " bytes");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (chunkNumber == 1 && FileTypeUtils.getFileType(data,
+                    Math.min(data.length, FileTypeUtils.HEADER_SIZE), session.filename) == null) {
+                throw new FileResponseException("Tipo de arquivo não suportado");
+            }
+
+            multipartClient.sendPart(session.bucketName, session.objectName, session.uploadId, chunkNumber, data, expected)
+                    .join();
+        } finally {
+            bufferedBytes.release(expected);
+        }
+        session.completed.add(chunkNumber);
+        session.touch(minioProperties.getResumable());
+        LOGGER.debug("UploadSessionServiceImpl | putChunk | sessão {} pedaço {}", sessionId, chunkNumber);
+        return session.toPayload(session.completed.stream().sorted().toList());
+    }
+
+    @Override
+    public UploadSession status(String sessionId) {
+        Session session = session(sessionId);
+        // MinIO is the reference: a chunk stored just before the connection dropped counts as done
+        List<Integer> completed = storedParts(session).stream().map(Part::partNumber).sorted().toList();
+        session.completed.addAll(completed);
+        session.touch(minioProperties.getResumable());
+        return session.toPayload(completed);
+    }
+
+    @Override
+    public FileResponse complete(String sessionId) {
+        Session session = session(sessionId);
+        // Only one request completes the session at a time; it stays open until MinIO has assembled the object,
+        // so a failed completion can be retried or aborted
+        if (!session.completing.compareAndSet(false, true)) {
+            throw new FileResponseException("Sessão de upload já está sendo concluída");
+        }
+        try {
+            List<Part> parts = storedParts(session).stream()
+                    .sorted(Comparator.comparingInt(Part::partNumber))
+                    .toList();
+            if (parts.size() != session.totalChunks) {
+                throw new FileResponseException("Faltam " + (session.totalChunks - parts.size()) + " pedaços para concluir o upload");
+            }
+            multipartClient.complete(session.bucketName, session.objectName, session.uploadId, parts.toArray(Part[]::new))
+                    .join();
+        } catch (RuntimeException e) {
+            session.completing.set(false);
+            session.touch(minioProperties.getResumable());
+            throw e;
+        }
+        sessions.remove(sessionId, session);
+        LOGGER.info("UploadSessionServiceImpl | complete | sessão {} concluída : {}", sessionId, session.objectName);
+        return FileResponse.builder()
+                .filename(session.objectName)
+                .fileSize(session.fileSize)
+                .contentType(session.contentType)
+                .createdTime(LocalDateTime.now())
+                .build();
+    }
+
+    @Override
+    public void abort(String sessionId) {
+        Session session = session(sessionId);
+        if (session.completing.get()) {
+            throw new FileResponseException("Sessão de upload já está sendo concluída");
+        }
+        if (!sessions.remove(sessionId, session)) {
+            throw new FileResponseException("Sessão de upload não encontrada");
+        }
+        multipartClient.abort(session.bucketName, session.objectName, session.uploadId).join();
+        LOGGER.info("UploadSessionServiceImpl | abort | sessão {} cancelada", sessionId);
+    }
+
+    @Scheduled(fixedDelayString = "#{@minioConfig.resumable.cleanupInterval.toMillis()}",
+            initialDelayString = "#{@minioConfig.resumable.cleanupInterval.toMillis()}")
+    public void abortExpired() {
+        Instant now = Instant.now();
+        sessions.values().removeIf(session -> {
+            if (session.completing.get() || session.expiresAt.isAfter(now)) {
+                return false;
+            }
+            // MinIO keeps the parts of an upload until it is aborted, so expired sessions must not just be forgotten
+            multipartClient.abort(session.bucketName, session.objectName, session.uploadId)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            LOGGER.warn("UploadSessionServiceImpl | abortExpired | falha ao abortar sessão {} : {}",
+                                    session.id, error.getMessage());
+                        }
+                    });
+            LOGGER.info("UploadSessionServiceImpl | abortExpired | sessão {} expirada", session.id);
+            return true;
+        });
+    }
+
+    // Sessions live in memory, so after a restart their uploads are only known to MinIO; those idle past the expiry are aborted.
+    // Only uploads under the session prefix are considered, and those of another instance are as idle there as here
+    @Scheduled(fixedDelayString = "#{@minioConfig.resumable.cleanupInterval.toMillis()}")
+    public void abortAbandoned() {
+        MinioConfig.Resumable resumable = minioProperties.getResumable();
+        Instant cutoff = Instant.now().minus(resumable.getExpiry());
+        Set<String> open = sessions.values().stream().map(session -> session.uploadId).collect(Collectors.toSet());
+        List<String> buckets;
+        try {
+            buckets = minioUtil.listBucketNames();
+        } catch (Exception e) {
+            LOGGER.warn("UploadSessionServiceImpl | abortAbandoned | falha ao listar buckets : {}", e.getMessage());
+            return;
+        }
+        for (String bucket : buckets) {
+            try {
+                multipartClient.listUploads(bucket, resumable.getPrefix()).join().stream()
+                        .filter(upload -> !open.contains(upload.uploadId()))
+                        // An upload started after the cutoff cannot have been idle since, its parts are not listed
+                        .filter(upload -> upload.initiated() != null && upload.initiated().toInstant().isBefore(cutoff))
+                        .filter(upload -> lastActivity(bucket, upload).isBefore(cutoff))
+                        .forEach(upload -> {
+                            multipartClient.abort(bucket, upload.objectName(), upload.uploadId()).join();
+                            LOGGER.info("UploadSessionServiceImpl | abortAbandoned | upload {} de {} abortado",
+                                    upload.uploadId(), upload.objectName());
+                        });
+            } catch (RuntimeException e) {
+                LOGGER.warn("UploadSessionServiceImpl | abortAbandoned | falha ao verificar bucket {} : {}",
+                        bucket, e.getMessage());
+            }
+        }
+    }
+
+    private Session session(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            throw new FileResponseException("Sessão de upload não encontrada");
+        }
+        return session;
+    }
+
+    // When the upload last received a part, or was started if it has none
+    private Instant lastActivity(String bucket, Upload upload) {
+        return multipartClient.listParts(bucket, upload.objectName(), upload.uploadId()).join().stream()
+                .map(Part::lastModified)
+                .filter(Objects::nonNull)
+                .map(ZonedDateTime::toInstant)
+                .max(Comparator.naturalOrder())
+                .orElse(upload.initiated().toInstant());
+    }
+
+    private List<Part> storedParts(Session session) {
+        return multipartClient.listParts(session.bucketName, session.objectName, session.uploadId).join();
+    }
+
+    private static class Session {
+
+        private final String id;
+        private final String bucketName;
+        private final String filename;
+        private final String objectName;
+        private final String contentType;
+        private final String uploadId;
+        private final long fileSize;
+        private final long chunkSize;
+        private final int totalChunks;
+        private final Set<Integer> completed = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean completing = new AtomicBoolean();
+        private volatile Instant expiresAt;
+
+        Session(String id, String bucketName, String filename, String objectName, String contentType, String uploadId,
+                long fileSize, long chunkSize, int totalChunks) {
+            this.id = id;
+            this.bucketName = bucketName;
+            this.filename = filename;
+            this.objectName = objectName;
+            this.contentType = contentType;
+            this.uploadId = uploadId;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+        }
+
+        void touch(MinioConfig.Resumable resumable) {
+            expiresAt = Instant.now().plus(resumable.getExpiry());
+        }
+
+        UploadSession toPayload(List<Integer> completedChunks) {
+            return UploadSession.builder()
+                    .sessionId(id)
+                    .bucketName(bucketName)
+                    .filename(objectName)
+                    .contentType(contentType)
+                    .fileSize(fileSize)
+                    .chunkSize(chunkSize)
+                    .totalChunks(totalChunks)
+                    .completedChunks(completedChunks)
+                    .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.of("UTC")))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.springminio.app.util;
+
+import com.springminio.app.config.MinioConfig;
+import io.minio.StatObjectResponse;
+import lombok.RequiredArgsConstructor;
+import okhttp3.Headers;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Per-content-type compression of stored objects. Matching uploads are deflated while they stream to
+ * MinIO and stored with {@code Content-Encoding: deflate}, the original size kept in user metadata.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompressionUtil {
+
+    // HTTP "deflate" coding: zlib framed deflate, which is what Deflater produces by default
+    public static final String CODEC = "deflate";
+
+    // User metadata holding the size of the uncompressed object
+    public static final String ORIGINAL_SIZE = "original-size";
+
+    private final MinioConfig minioConfig;
+
+
+    // Whether an upload of this type and size is stored compressed
+    public boolean applies(String contentType, long size) {
+        MinioConfig.Compression compression = minioConfig.getCompression();
+        return compression.isEnabled()
+                && size >= compression.getMinSize()
+                && contentType != null
+                && compression.getContentTypes().contains(contentType);
+    }
+
+    // Headers recording the codec and the original size on the stored object
+    public static Map<String, String> headers(long originalSize) {
+        return Map.of(HttpHeaders.CONTENT_ENCODING, CODEC, "x-amz-meta-" + ORIGINAL_SIZE, String.valueOf(originalSize));
+    }
+
+    // Deflate the stream while it is read, the deflater is released when the stream is closed
+    public InputStream compress(InputStream inputStream) {
+        Deflater deflater = new Deflater(minioConfig.getCompression().getLevel());
+        return new DeflaterInputStream(inputStream, deflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    public static boolean isCompressed(StatObjectResponse stat) {
+        return isCompressed(stat.headers());
+    }
+
+    public static boolean isCompressed(Headers headers) {
+        return Optional.ofNullable(headers)
+                .map(h -> h.get(HttpHeaders.CONTENT_ENCODING))
+                .filter(CODEC::equalsIgnoreCase)
+                .isPresent();
+    }
+
+    // Size of the object once decompressed, when it was recorded at upload
+    public static Optional<Long> originalSize(StatObjectResponse stat) {
+        return Optional.ofNullable(stat.userMetadata())
+                .map(metadata -> metadata.get(ORIGINAL_SIZE))
+                .filter(StringUtils::isNumeric)
+                .map(Long::valueOf);
+    }
+
+    // Whether an Accept-Encoding header lets the stored bytes go out as they are
+    public static boolean accepts(String acceptEncoding) {
+        if (StringUtils.isBlank(acceptEncoding)) {
+            return false;
+        }
+        return Arrays.stream(acceptEncoding.split(","))
+                .map(String::trim)
+                .anyMatch(coding -> {
+                    String name = StringUtils.substringBefore(coding, ";").trim();
+                    String quality = StringUtils.substringAfter(coding, "q=").trim();
+                    boolean refused = !quality.isEmpty() && quality.matches("0(\\.0*)?");
+                    return (CODEC.equalsIgnoreCase(name) || "*".equals(name)) && !refused;
+                });
+    }
+
+    public static InputStream decompress(InputStream inputStream) {
+        return new InflaterInputStream(inputStream);
+    }
+}
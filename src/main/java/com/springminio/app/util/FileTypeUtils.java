@@ -1,86 +1,188 @@
 package com.springminio.app.util;
 
-import cn.hutool.core.io.FileTypeUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
 
+/**
+ * Content-type detection from the leading bytes of a file. Signatures are compiled once into a table
+ * indexed by the first byte, each slot ordered from the most to the least specific signature, so a
+ * header is matched against a handful of candidates in a fixed order. Container formats (ZIP, OLE2)
+ * are refined by the file extension, and headers without a signature fall back to a plain-text check.
+ */
 public class FileTypeUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(FileTypeUtils.class);
 
-    private static final String IMAGE_TYPE = "image/";
-    private static final String AUDIO_TYPE = "audio/";
-    private static final String VIDEO_TYPE = "video/";
-    private static final String APPLICATION_TYPE = "application/";
-    private static final String TXT_TYPE = "text/";
-
-    private static final Map<Predicate<String>, String> TYPE_MAPPINGS = Map.of(
-            type -> type.equalsIgnoreCase("JPG") ||
-                    type.equalsIgnoreCase("JPEG") ||
-                    type.equalsIgnoreCase("GIF") ||
-                    type.equalsIgnoreCase("PNG") ||
-                    type.equalsIgnoreCase("BMP") ||
-                    type.equalsIgnoreCase("PCX") ||
-                    type.equalsIgnoreCase("TGA") ||
-                    type.equalsIgnoreCase("PSD") ||
-                    type.equalsIgnoreCase("TIFF"), IMAGE_TYPE,
-
-            type -> type.equalsIgnoreCase("mp3") ||
-                    type.equalsIgnoreCase("OGG") ||
-                    type.equalsIgnoreCase("WAV") ||
-                    type.equalsIgnoreCase("REAL") ||
-                    type.equalsIgnoreCase("APE") ||
-                    type.equalsIgnoreCase("MODULE") ||
-                    type.equalsIgnoreCase("MIDI") ||
-                    type.equalsIgnoreCase("VQF") ||
-                    type.equalsIgnoreCase("CD"), AUDIO_TYPE,
-
-            type -> type.equalsIgnoreCase("mp4") ||
-                    type.equalsIgnoreCase("avi") ||
-                    type.equalsIgnoreCase("MPEG-1") ||
-                    type.equalsIgnoreCase("RM") ||
-                    type.equalsIgnoreCase("ASF") ||
-                    type.equalsIgnoreCase("WMV") ||
-                    type.equalsIgnoreCase("qlv") ||
-                    type.equalsIgnoreCase("MPEG-2") ||
-                    type.equalsIgnoreCase("MPEG4") ||
-                    type.equalsIgnoreCase("mov") ||
-                    type.equalsIgnoreCase("3gp"), VIDEO_TYPE,
-
-            type -> type.equalsIgnoreCase("doc") ||
-                    type.equalsIgnoreCase("docx") ||
-                    type.equalsIgnoreCase("ppt") ||
-                    type.equalsIgnoreCase("pptx") ||
-                    type.equalsIgnoreCase("xls") ||
-                    type.equalsIgnoreCase("xlsx") ||
-                    type.equalsIgnoreCase("zip") ||
-                    type.equalsIgnoreCase("jar"), APPLICATION_TYPE,
-
-            type -> type.equalsIgnoreCase("txt"), TXT_TYPE
+    // Bytes read ahead of the upload, enough for the tar header and the text check
+    public static final int HEADER_SIZE = 512;
+
+    private static final String ZIP = "application/zip";
+    private static final String OLE2 = "application/x-ole-storage";
+    private static final String TEXT = "text/plain";
+
+    private static final List<Signature> SIGNATURES = List.of(
+            // Images
+            new Signature("image/jpeg", 0, bytes(0xFF, 0xD8, 0xFF)),
+            new Signature("image/png", 0, bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)),
+            new Signature("image/gif", 0, ascii("GIF87a")),
+            new Signature("image/gif", 0, ascii("GIF89a")),
+            new Signature("image/bmp", 0, ascii("BM")),
+            new Signature("image/tiff", 0, bytes('I', 'I', 0x2A, 0x00)),
+            new Signature("image/tiff", 0, bytes('M', 'M', 0x00, 0x2A)),
+            new Signature("image/vnd.adobe.photoshop", 0, ascii("8BPS")),
+            new Signature("image/x-icon", 0, bytes(0x00, 0x00, 0x01, 0x00)),
+            new Signature("image/webp", 0, ascii("RIFF"), 8, ascii("WEBP")),
+            new Signature("image/avif", 4, ascii("ftypavif")),
+            new Signature("image/heic", 4, ascii("ftypheic")),
+            new Signature("image/heic", 4, ascii("ftypheix")),
+            // Audio
+            new Signature("audio/mpeg", 0, ascii("ID3")),
+            new Signature("audio/mpeg", 0, bytes(0xFF, 0xFB)),
+            new Signature("audio/mpeg", 0, bytes(0xFF, 0xF3)),
+            new Signature("audio/mpeg", 0, bytes(0xFF, 0xF2)),
+            new Signature("audio/ogg", 0, ascii("OggS")),
+            new Signature("audio/wav", 0, ascii("RIFF"), 8, ascii("WAVE")),
+            new Signature("audio/flac", 0, ascii("fLaC")),
+            new Signature("audio/midi", 0, ascii("MThd")),
+            new Signature("audio/x-ape", 0, ascii("MAC ")),
+            new Signature("audio/mp4", 4, ascii("ftypM4A ")),
+            // Video
+            new Signature("video/x-msvideo", 0, ascii("RIFF"), 8, ascii("AVI ")),
+            new Signature("video/quicktime", 4, ascii("ftypqt  ")),
+            new Signature("video/3gpp", 4, ascii("ftyp3gp")),
+            new Signature("video/mp4", 4, ascii("ftyp")),
+            new Signature("video/x-ms-asf", 0, bytes(0x30, 0x26, 0xB2, 0x75, 0x8E, 0x66, 0xCF, 0x11)),
+            new Signature("video/webm", 0, bytes(0x1A, 0x45, 0xDF, 0xA3)),
+            new Signature("video/mpeg", 0, bytes(0x00, 0x00, 0x01, 0xBA)),
+            new Signature("video/mpeg", 0, bytes(0x00, 0x00, 0x01, 0xB3)),
+            new Signature("video/x-flv", 0, ascii("FLV")),
+            new Signature("application/vnd.rn-realmedia", 0, ascii(".RMF")),
+            // Documents and archives
+            new Signature("application/pdf", 0, ascii("%PDF-")),
+            new Signature("application/rtf", 0, ascii("{\\rtf")),
+            new Signature("application/xml", 0, ascii("<?xml")),
+            new Signature(ZIP, 0, bytes('P', 'K', 0x03, 0x04)),
+            new Signature(ZIP, 0, bytes('P', 'K', 0x05, 0x06)),
+            new Signature(ZIP, 0, bytes('P', 'K', 0x07, 0x08)),
+            new Signature(OLE2, 0, bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)),
+            new Signature("application/gzip", 0, bytes(0x1F, 0x8B)),
+            new Signature("application/x-bzip2", 0, ascii("BZh")),
+            new Signature("application/x-xz", 0, bytes(0xFD, '7', 'z', 'X', 'Z', 0x00)),
+            new Signature("application/x-7z-compressed", 0, bytes('7', 'z', 0xBC, 0xAF, 0x27, 0x1C)),
+            new Signature("application/vnd.rar", 0, bytes('R', 'a', 'r', '!', 0x1A, 0x07)),
+            new Signature("application/zstd", 0, bytes(0x28, 0xB5, 0x2F, 0xFD)),
+            new Signature("application/x-tar", 257, ascii("ustar"))
+    );
+
+    // Signatures by the byte they expect at offset 0; the rest are tried for every header
+    private static final Signature[][] BY_FIRST_BYTE = new Signature[256][];
+    private static final Signature[] UNANCHORED;
+
+    static {
+        // Longer signatures first, declaration order between equals, so the result never depends on iteration order
+        Comparator<Signature> specificity = Comparator.comparingInt(Signature::length).reversed();
+        List<List<Signature>> anchored = new ArrayList<>(256);
+        for (int i = 0; i < 256; i++) {
+            anchored.add(new ArrayList<>());
+        }
+        List<Signature> unanchored = new ArrayList<>();
+        for (Signature signature : SIGNATURES) {
+            if (signature.offset() == 0) {
+                anchored.get(signature.magic()[0] & 0xFF).add(signature);
+            } else {
+                unanchored.add(signature);
+            }
+        }
+        for (int i = 0; i < 256; i++) {
+            anchored.get(i).sort(specificity);
+            BY_FIRST_BYTE[i] = anchored.get(i).toArray(Signature[]::new);
+        }
+        unanchored.sort(specificity);
+        UNANCHORED = unanchored.toArray(Signature[]::new);
+    }
+
+    // Container formats told apart by the extension of the original file name
+    private static final Map<String, Map<String, String>> BY_EXTENSION = Map.of(
+            ZIP, Map.of(
+                    "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                    "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                    "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                    "odt", "application/vnd.oasis.opendocument.text",
+                    "ods", "application/vnd.oasis.opendocument.spreadsheet",
+                    "odp", "application/vnd.oasis.opendocument.presentation",
+                    "epub", "application/epub+zip",
+                    "jar", "application/java-archive"),
+            OLE2, Map.of(
+                    "doc", "application/msword",
+                    "xls", "application/vnd.ms-excel",
+                    "ppt", "application/vnd.ms-powerpoint",
+                    "msg", "application/vnd.ms-outlook"),
+            "video/x-ms-asf", Map.of(
+                    "wmv", "video/x-ms-wmv",
+                    "wma", "audio/x-ms-wma"),
+            "video/webm", Map.of(
+                    "mkv", "video/x-matroska"),
+            TEXT, Map.of(
+                    "csv", "text/csv",
+                    "json", "application/json",
+                    "md", "text/markdown")
     );
 
+
+    // Detect the type of an upload and return it with a stream that still starts at the first byte
+    public static TypedStream detect(InputStream inputStream, String filename) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(inputStream, HEADER_SIZE);
+        byte[] header = new byte[HEADER_SIZE];
+        int length = pushback.readNBytes(header, 0, HEADER_SIZE);
+        pushback.unread(header, 0, length);
+
+        String type = getFileType(header, length, filename);
+        LOGGER.info("FileTypeUtils | detect | filename : {}, type : {}", filename, type);
+        return new TypedStream(type, pushback);
+    }
+
+    // Type of the given header bytes, null when the format is not supported
+    public static String getFileType(byte[] header, int length, String filename) {
+        if (length == 0) {
+            return null;
+        }
+        String type = match(BY_FIRST_BYTE[header[0] & 0xFF], header, length);
+        if (type == null) {
+            type = match(UNANCHORED, header, length);
+        }
+        if (type == null && isText(header, length)) {
+            type = TEXT;
+        }
+        if (type == null) {
+            return null;
+        }
+        String extension = StringUtils.lowerCase(StringUtils.substringAfterLast(filename, "."));
+        return Optional.ofNullable(BY_EXTENSION.get(type))
+                .map(refinements -> refinements.get(extension))
+                .orElse(type);
+    }
+
     public static String getFileType(MultipartFile multipartFile) {
         return Optional.ofNullable(multipartFile)
                 .map(file -> {
                     try (var inputStream = file.getInputStream()) {
-                        String type = FileTypeUtil.getType(inputStream);
-                        LOGGER.info("FileTypeUtils | getFileType | type : {}", type);
-
-                        return TYPE_MAPPINGS.entrySet().stream()
-                                .filter(entry -> entry.getKey().test(type))
-                                .map(entry -> {
-                                    String result = entry.getValue() + type;
-                                    LOGGER.info("FileTypeUtils | getFileType | detected type : {}", result);
-                                    return result;
-                                })
-                                .findFirst()
-                                .orElse(null);
-
+                        return detect(inputStream, file.getOriginalFilename()).contentType();
                     } catch (IOException e) {
                         LOGGER.error("FileTypeUtils | getFileType | IOException : {}", e.getMessage());
                         return null;
@@ -88,4 +190,73 @@ public class FileTypeUtils {
                 })
                 .orElse(null);
     }
-}
\ No newline at end of file
+
+    private static String match(Signature[] candidates, byte[] header, int length) {
+        for (Signature signature : candidates) {
+            if (signature.matches(header, length)) {
+                return signature.contentType();
+            }
+        }
+        return null;
+    }
+
+    // Valid UTF-8 without control characters other than whitespace; binary data rarely decodes, so it is not taken for text
+    private static boolean isText(byte[] header, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xFF;
+            if ((b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f') || b == 0x7F) {
+                return false;
+            }
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = ByteBuffer.wrap(header, 0, length);
+        // Not the end of input: the header may cut the last character in the middle, those bytes are simply left over
+        CoderResult result = decoder.decode(in, CharBuffer.allocate(length), false);
+        return !result.isError() && in.remaining() < 4;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public record TypedStream(String contentType, InputStream inputStream) {
+    }
+
+    // Magic bytes at an offset, optionally followed by a second part further in the header (e.g. RIFF subtypes)
+    private record Signature(String contentType, int offset, byte[] magic, int secondOffset, byte[] secondMagic) {
+
+        Signature(String contentType, int offset, byte[] magic) {
+            this(contentType, offset, magic, 0, new byte[0]);
+        }
+
+        int length() {
+            return magic.length + secondMagic.length;
+        }
+
+        boolean matches(byte[] header, int length) {
+            return matchesAt(header, length, offset, magic) && matchesAt(header, length, secondOffset, secondMagic);
+        }
+
+        private static boolean matchesAt(byte[] header, int length, int offset, byte[] expected) {
+            if (offset + expected.length > length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (header[offset + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.springminio.app.util;
+
+import com.springminio.app.config.MinioConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hedged getObject and statObject. The request is sent through MinioAsyncClient; when no response
+ * has arrived after the {@code minio.hedge.percentile} latency of recent requests, a second identical
+ * request is sent and whichever answers first is used. The response that loses is closed as soon as
+ * it arrives, which releases its connection. Hedges are paid from a budget earning
+ * {@code minio.hedge.budget} of a hedge per request, so they add at most that fraction of load.
+ */
+@Component
+public class HedgedReadUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgedReadUtil.class);
+
+    // Budget is kept in thousandths of a hedge so fractional earnings add up exactly
+    private static final long HEDGE_COST = 1000;
+
+    private final MinioAsyncClient minioAsyncClient;
+    private final MinioConfig.Hedge hedge;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong budget = new AtomicLong();
+
+    public HedgedReadUtil(MinioAsyncClient minioAsyncClient, MinioConfig minioConfig, MeterRegistry meterRegistry) {
+        this.minioAsyncClient = minioAsyncClient;
+        this.hedge = minioConfig.getHedge();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return hedge.isEnabled();
+    }
+
+    public GetObjectResponse getObject(GetObjectArgs args) throws Exception {
+        return execute("getObject", () -> minioAsyncClient.getObject(args), HedgedReadUtil::closeQuietly);
+    }
+
+    public StatObjectResponse statObject(StatObjectArgs args) throws Exception {
+        return execute("statObject", () -> minioAsyncClient.statObject(args), stat -> { });
+    }
+
+    // Send the request, hedged once it is slower than the tracked percentile; discard receives the losing result
+    <T> T execute(String operation, Callable<CompletableFuture<T>> request, Consumer<T> discard) throws Exception {
+        LatencyTracker tracker = trackers.computeIfAbsent(operation, key -> new LatencyTracker(hedge.getSamples()));
+        earn();
+
+        long start = System.nanoTime();
+        CompletableFuture<T> primary = call(request);
+        primary.thenRun(() -> tracker.record(System.nanoTime() - start));
+
+        // No hedging until enough latencies are known to tell a slow request from a normal one
+        long percentile = tracker.percentile(hedge.getPercentile());
+        if (percentile < 0) {
+            return await(primary);
+        }
+        long delay = Math.max(percentile, hedge.getMinDelay().toNanos());
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Still no response, hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        if (!spend()) {
+            hedgeCounter(operation, "denied").increment();
+            return await(primary);
+        }
+        LOGGER.debug("HedgedReadUtil | execute | {} sem resposta após {} ms, enviando segunda requisição",
+                operation, TimeUnit.NANOSECONDS.toMillis(delay));
+        hedgeCounter(operation, "sent").increment();
+        CompletableFuture<T> backup = call(request);
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> candidate : Arrays.asList(primary, backup)) {
+            candidate.whenComplete((result, error) -> {
+                if (error == null) {
+                    if (!winner.complete(result)) {
+                        discard.accept(result);
+                    } else if (candidate == backup) {
+                        hedgeCounter(operation, "won").increment();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return await(winner);
+    }
+
+    // Every request earns a fraction of a hedge, capped so a quiet period cannot fund a burst of hedges
+    private void earn() {
+        long earned = Math.round(hedge.getBudget() * HEDGE_COST);
+        long cap = Math.max(HEDGE_COST, (long) hedge.getMaxBurst() * HEDGE_COST);
+        budget.updateAndGet(current -> Math.min(cap, current + earned));
+    }
+
+    private boolean spend() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    private Counter hedgeCounter(String operation, String result) {
+        return Counter.builder("minio.hedge.requests")
+                .description("Requisições de leitura duplicadas para reduzir a latência de cauda")
+                .tags("operation", operation, "result", result)
+                .register(meterRegistry);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception exception ? exception : e;
+    }
+
+    // MinioAsyncClient throws request-building errors directly; surface them through the future instead
+    private static <T> CompletableFuture<T> call(Callable<CompletableFuture<T>> request) {
+        try {
+            return request.call();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static void closeQuietly(GetObjectResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            LOGGER.warn("HedgedReadUtil | getObject | erro ao fechar resposta descartada: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ring of the latest latencies. The percentile is recomputed from a sorted copy every
+     * {@code RECOMPUTE_EVERY} samples, and is -1 until the ring has been filled once.
+     */
+    static class LatencyTracker {
+
+        private static final int RECOMPUTE_EVERY = 64;
+
+        private final long[] samples;
+        private final AtomicLong recorded = new AtomicLong();
+        private volatile double cachedPercentile = -1;
+        private volatile long cached;
+
+        LatencyTracker(int size) {
+            this.samples = new long[Math.max(size, RECOMPUTE_EVERY)];
+        }
+
+        void record(long nanos) {
+            long count = recorded.getAndIncrement();
+            samples[(int) (count % samples.length)] = nanos;
+            if ((count + 1) % RECOMPUTE_EVERY == 0) {
+                cachedPercentile = -1;
+            }
+        }
+
+        long percentile(double percentile) {
+            if (recorded.get() < samples.length) {
+                return -1;
+            }
+            if (cachedPercentile != percentile) {
+                long[] sorted = samples.clone();
+                Arrays.sort(sorted);
+                cached = sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+                cachedPercentile = percentile;
+            }
+            return cached;
+        }
+    }
+}
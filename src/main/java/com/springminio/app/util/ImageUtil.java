@@ -0,0 +1,140 @@
+package com.springminio.app.util;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Decodes, resizes and encodes images for the derivative endpoint. The work is CPU bound, so at most
+ * {@code minio.image.concurrency} images are processed at once; further requests wait for a slot.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageUtil.class);
+
+    // Output formats and their content types
+    public static final Map<String, String> FORMATS = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png");
+
+    private final MinioConfig minioConfig;
+
+    private Semaphore permits;
+
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, minioConfig.getImage().getConcurrency()), true);
+    }
+
+    // Resize the image to the given width, keeping its aspect ratio and never enlarging it
+    public byte[] resize(InputStream source, int width, String format) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Redimensionamento interrompido", e);
+        }
+        try {
+            BufferedImage image = read(source);
+            int targetWidth = Math.min(width, image.getWidth());
+            int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+            LOGGER.info("ImageUtil | resize | {}x{} -> {}x{}", image.getWidth(), image.getHeight(), targetWidth, targetHeight);
+
+            BufferedImage resized = scale(image, targetWidth, targetHeight, "png".equals(format));
+            return write(resized, format);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private BufferedImage read(InputStream source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new FileResponseException("Formato de imagem não suportado");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // The header is checked before decoding, so a huge image never gets its pixels allocated
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > minioConfig.getImage().getMaxSourcePixels()) {
+                    throw new FileResponseException("Imagem muito grande para redimensionar");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halve the image until it is close to the target, then draw the final size; one bilinear step would alias
+    private static BufferedImage scale(BufferedImage image, int width, int height, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                if (!alpha) {
+                    // JPEG has no transparency, transparent pixels become white instead of black
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private byte[] write(BufferedImage image, String format) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(FORMATS.get(format)).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(minioConfig.getImage().getJpegQuality());
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
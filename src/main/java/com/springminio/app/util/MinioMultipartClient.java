@@ -0,0 +1,128 @@
+package com.springminio.app.util;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.ListMultipartUploadsResult;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import io.minio.messages.Upload;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exposes the S3 multipart upload calls that {@link MinioAsyncClient} keeps protected,
+ * so parts can be sent independently and concurrently, and an upload can be resumed from the parts it has.
+ */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+    public MinioMultipartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    // Start a multipart upload and return its upload id
+    public CompletableFuture<String> initiate(String bucketName, String objectName, String contentType) {
+        return initiate(bucketName, objectName, contentType, Map.of());
+    }
+
+    // Start a multipart upload with extra headers stored on the object, e.g. Content-Encoding or x-amz-meta-*
+    public CompletableFuture<String> initiate(String bucketName, String objectName, String contentType,
+                                              Map<String, String> extraHeaders) {
+        Multimap<String, String> headers = HashMultimap.create();
+        extraHeaders.forEach(headers::put);
+        if (StringUtils.isNotBlank(contentType)) {
+            headers.put("Content-Type", contentType);
+        }
+        try {
+            return createMultipartUploadAsync(bucketName, null, objectName, headers, null)
+                    .thenApply(response -> response.result().uploadId());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Send one part of an upload, the first length bytes of data
+    public CompletableFuture<Part> sendPart(String bucketName, String objectName, String uploadId,
+                                            int partNumber, byte[] data, int length) {
+        try {
+            return uploadPartAsync(bucketName, null, objectName, data, length, uploadId, partNumber, null, null)
+                    .thenApply(response -> new Part(partNumber, response.etag()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Assemble the uploaded parts into the final object
+    public CompletableFuture<ObjectWriteResponse> complete(String bucketName, String objectName, String uploadId,
+                                                           Part[] parts) {
+        try {
+            return completeMultipartUploadAsync(bucketName, null, objectName, uploadId, parts, null, null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Parts stored so far for an upload, following the pages of ListParts
+    public CompletableFuture<List<Part>> listParts(String bucketName, String objectName, String uploadId) {
+        return listParts(bucketName, objectName, uploadId, null, new ArrayList<>());
+    }
+
+    private CompletableFuture<List<Part>> listParts(String bucketName, String objectName, String uploadId,
+                                                    Integer partNumberMarker, List<Part> parts) {
+        try {
+            return listPartsAsync(bucketName, null, objectName, null, partNumberMarker, uploadId, null, null)
+                    .thenCompose(response -> {
+                        ListPartsResult result = response.result();
+                        parts.addAll(result.partList());
+                        return result.isTruncated()
+                                ? listParts(bucketName, objectName, uploadId, result.nextPartNumberMarker(), parts)
+                                : CompletableFuture.completedFuture(parts);
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Uploads started in the bucket and neither completed nor aborted, following the pages of ListMultipartUploads
+    public CompletableFuture<List<Upload>> listUploads(String bucketName) {
+        return listUploads(bucketName, null);
+    }
+
+    // Same, only for the objects whose name starts with the prefix
+    public CompletableFuture<List<Upload>> listUploads(String bucketName, String prefix) {
+        return listUploads(bucketName, prefix, null, null, new ArrayList<>());
+    }
+
+    private CompletableFuture<List<Upload>> listUploads(String bucketName, String prefix, String keyMarker,
+                                                        String uploadIdMarker, List<Upload> uploads) {
+        try {
+            return listMultipartUploadsAsync(bucketName, null, null, null, keyMarker, null, prefix, uploadIdMarker,
+                    null, null)
+                    .thenCompose(response -> {
+                        ListMultipartUploadsResult result = response.result();
+                        uploads.addAll(result.uploads());
+                        return result.isTruncated()
+                                ? listUploads(bucketName, prefix, result.nextKeyMarker(), result.nextUploadIdMarker(),
+                                        uploads)
+                                : CompletableFuture.completedFuture(uploads);
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Abort an upload and discard the parts already stored
+    public CompletableFuture<Void> abort(String bucketName, String objectName, String uploadId) {
+        try {
+            return abortMultipartUploadAsync(bucketName, null, objectName, uploadId, null, null)
+                    .thenAccept(response -> { });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
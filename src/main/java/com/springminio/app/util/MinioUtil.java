@@ -1,7 +1,16 @@
 package com.springminio.app.util;
 
+import com.springminio.app.cache.BucketRegistry;
+import com.springminio.app.cache.PresignedUrlCache;
 import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.payload.DeleteResponse;
+import com.springminio.app.payload.ObjectDeleteResult;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.payload.ObjectListing;
+import com.springminio.app.payload.PresignedUrls;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import io.minio.messages.Bucket;
 import io.minio.messages.DeleteError;
@@ -9,17 +18,22 @@ import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Component
@@ -28,45 +42,97 @@ public class MinioUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MinioUtil.class);
 
+    // Largest page, so that page + 1 entries still fit in one S3 listing request
+    private static final int MAX_PAGE_SIZE = 999;
+
+    // S3 orders keys by their UTF-8 bytes, which differs from String order for characters outside the BMP
+    private static final Comparator<ObjectEntry> KEY_ORDER = Comparator.comparing(
+            entry -> entry.getName().getBytes(StandardCharsets.UTF_8), Arrays::compareUnsigned);
+
+    // Highest code point, appended to a common prefix so a listing resumes after every key under it
+    private static final String AFTER_PREFIX = new String(Character.toChars(Character.MAX_CODE_POINT));
+
+    // Keys accepted by a single S3 multi-object delete request
+    private static final int MAX_DELETE_BATCH_SIZE = 1000;
+
+    private static final Set<String> BUCKET_EXISTS_CODES = Set.of("BucketAlreadyOwnedByYou", "BucketAlreadyExists");
+
+    private static final Set<String> NOT_FOUND_CODES = Set.of("NoSuchKey", "NoSuchBucket", "NoSuchObject");
+
     private final MinioClient minioClient;
     private final MinioConfig minioConfig;
+    private final MultipartUploadUtil multipartUploadUtil;
+    private final PresignedUrlCache presignedUrlCache;
+    private final BucketRegistry bucketRegistry;
+    private final ExecutorService minioAsyncExecutor;
+    private final CompressionUtil compressionUtil;
+    private final HedgedReadUtil hedgedReadUtil;
 
 
     @SneakyThrows
     public void putObject(String bucketName, MultipartFile multipartFile, String filename, String fileType) {
         LOGGER.info("MinioUtil | putObject is called");
-        LOGGER.info("MinioUtil | putObject | filename : {}", filename);
-        LOGGER.info("MinioUtil | putObject | fileType : {}", fileType);
 
-        Optional.of(multipartFile)
-                .map(file -> {
-                    try {
-                        return new ByteArrayInputStream(file.getBytes());
-                    } catch (IOException e) {
-                        LOGGER.error("Erro ao ler arquivo: ", e);
-                        return null;
-                    }
-                })
-                .ifPresent(inputStream -> {
-                    try {
-                        minioClient.putObject(
-                                PutObjectArgs.builder()
-                                        .bucket(bucketName)
-                                        .object(filename)
-                                        .stream(inputStream, -1, minioConfig.getFileSize())
-                                        .contentType(fileType)
-                                        .build()
-                        );
-                    } catch (Exception e) {
-                        LOGGER.error("Erro ao fazer upload do arquivo: ", e);
-                    }
-                });
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            uploadObject(bucketName, inputStream, multipartFile.getSize(), filename, fileType);
+        } catch (Exception e) {
+            LOGGER.error("Erro ao fazer upload do arquivo: ", e);
+        }
+    }
+
+    // Upload a stream of known size, a failed upload is thrown to the caller; the stream is left open
+    public void uploadObject(String bucketName, InputStream inputStream, long objectSize, String filename,
+                             String fileType) throws Exception {
+        LOGGER.info("MinioUtil | uploadObject | filename : {}", filename);
+        LOGGER.info("MinioUtil | uploadObject | fileType : {}", fileType);
+
+        // Compressible types are deflated on the fly; the stored size is then unknown, so parts are cut as they fill
+        InputStream body = inputStream;
+        long bodySize = objectSize;
+        Map<String, String> headers = Map.of();
+        if (compressionUtil.applies(fileType, objectSize)) {
+            body = compressionUtil.compress(inputStream);
+            bodySize = -1;
+            headers = CompressionUtil.headers(objectSize);
+            LOGGER.info("MinioUtil | uploadObject | armazenado com compressão : {}", CompressionUtil.CODEC);
+        }
+
+        // Objects from the multipart threshold go through the parallel engine, which buffers a bounded number of parts;
+        // smaller ones are sent by putObject, which reads a compressed body of unknown size part by part
+        if (multipartUploadUtil.accepts(objectSize)) {
+            multipartUploadUtil.upload(bucketName, filename, fileType, headers, body);
+            return;
+        }
+        minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(filename)
+                        .stream(body, bodySize, partSize(objectSize))
+                        .contentType(fileType)
+                        .headers(headers)
+                        .build()
+        );
+    }
+
+    // Part size for a multipart upload: the configured size, grown only when the object would exceed the S3 part limit
+    private long partSize(long objectSize) {
+        long partSize = Math.max(minioConfig.getPartSize(), ObjectWriteArgs.MIN_MULTIPART_SIZE);
+        long minimumForObject = (objectSize + ObjectWriteArgs.MAX_MULTIPART_COUNT - 1) / ObjectWriteArgs.MAX_MULTIPART_COUNT;
+        if (minimumForObject > partSize) {
+            partSize = ((minimumForObject + ObjectWriteArgs.MIN_MULTIPART_SIZE - 1) / ObjectWriteArgs.MIN_MULTIPART_SIZE)
+                    * ObjectWriteArgs.MIN_MULTIPART_SIZE;
+        }
+        return partSize;
     }
 
     @SneakyThrows
     public boolean bucketExists(String bucketName) {
         LOGGER.info("MinioUtil | bucketExists is called");
 
+        if (bucketRegistry.contains(bucketName)) {
+            return true;
+        }
+
         return Optional.of(bucketName)
                 .map(bucket -> {
                     try {
@@ -78,6 +144,9 @@ public class MinioUtil {
                         LOGGER.info("MinioUtil | bucketExists | found : {}", found);
                         LOGGER.info("MinioUtil | bucketExists | message : {} {}",
                                 bucket, found ? "exists" : "does not exist");
+                        if (found) {
+                            bucketRegistry.register(bucket);
+                        }
                         return found;
                     } catch (Exception e) {
                         LOGGER.error("Erro ao verificar existência do bucket: ", e);
@@ -92,16 +161,26 @@ public class MinioUtil {
     public boolean makeBucket(String bucketName) {
         LOGGER.info("MinioUtil | makeBucket is called");
 
+        // No existence check first: MinIO reports an existing bucket itself, saving a round trip
         return Optional.of(bucketName)
-                .filter(bucket -> !bucketExists(bucket))
+                .filter(bucket -> !bucketRegistry.contains(bucket))
                 .map(bucket -> {
                     try {
                         minioClient.makeBucket(
                                 MakeBucketArgs.builder()
                                         .bucket(bucket)
                                         .build());
+                        bucketRegistry.register(bucket);
                         LOGGER.info("MinioUtil | makeBucket | Bucket criado com sucesso: {}", bucket);
                         return true;
+                    } catch (ErrorResponseException e) {
+                        if (BUCKET_EXISTS_CODES.contains(e.errorResponse().code())) {
+                            bucketRegistry.register(bucket);
+                            LOGGER.info("MinioUtil | makeBucket | Bucket já existe: {}", bucket);
+                        } else {
+                            LOGGER.error("Erro ao criar bucket: ", e);
+                        }
+                        return false;
                     } catch (Exception e) {
                         LOGGER.error("Erro ao criar bucket: ", e);
                         return false;
@@ -185,7 +264,8 @@ public class MinioUtil {
                         }
 
                         minioClient.removeBucket(RemoveBucketArgs.builder().bucket(bucket).build());
-                        return !bucketExists(bucket);
+                        bucketRegistry.unregister(bucket);
+                        return true;
                     } catch (Exception e) {
                         LOGGER.error("Erro ao remover bucket: ", e);
                         return false;
@@ -224,6 +304,127 @@ public class MinioUtil {
     }
 
 
+    // List one page of objects under a prefix, resuming after the object named by the continuation token
+    @SneakyThrows
+    public ObjectListing listObjects(String bucketName, String prefix, String delimiter, int maxKeys,
+                                     String continuationToken) {
+        LOGGER.info("MinioUtil | listObjects is called");
+        LOGGER.info("MinioUtil | listObjects | prefix : {}, maxKeys : {}", prefix, maxKeys);
+
+        if (!bucketExists(bucketName)) {
+            throw new FileResponseException("Bucket não encontrado");
+        }
+
+        // One page of pageSize + 1 entries is read, sorted and cut, so the token lands exactly between two keys;
+        // a page lists its objects before its common prefixes, hence the sort
+        int pageSize = Math.max(1, Math.min(maxKeys, MAX_PAGE_SIZE));
+        String startAfter = decodeContinuationToken(continuationToken);
+        Iterator<Result<Item>> results = iterateObjects(bucketName, prefix, delimiter, pageSize + 1, startAfter).iterator();
+
+        List<ObjectEntry> entries = new ArrayList<>(pageSize + 1);
+        while (entries.size() <= pageSize && results.hasNext()) {
+            entries.add(toObjectEntry(results.next().get()));
+        }
+        entries.sort(KEY_ORDER);
+
+        boolean truncated = entries.size() > pageSize;
+        List<ObjectEntry> objects = truncated ? new ArrayList<>(entries.subList(0, pageSize)) : entries;
+        LOGGER.info("MinioUtil | listObjects | {} objetos, truncated : {}", objects.size(), truncated);
+
+        return ObjectListing.builder()
+                .bucketName(bucketName)
+                .prefix(prefix)
+                .delimiter(delimiter)
+                .objects(objects)
+                .truncated(truncated)
+                .nextContinuationToken(truncated ? encodeContinuationToken(objects.get(pageSize - 1)) : null)
+                .build();
+    }
+
+
+    // Lazily list the objects under a prefix, pages are fetched from MinIO as the stream is consumed
+    @SneakyThrows
+    public Stream<ObjectEntry> streamObjects(String bucketName, String prefix, String delimiter) {
+        LOGGER.info("MinioUtil | streamObjects is called");
+
+        if (!bucketExists(bucketName)) {
+            throw new FileResponseException("Bucket não encontrado");
+        }
+
+        return StreamSupport.stream(iterateObjects(bucketName, prefix, delimiter, MAX_PAGE_SIZE + 1, null).spliterator(), false)
+                .map(result -> {
+                    try {
+                        return toObjectEntry(result.get());
+                    } catch (Exception e) {
+                        // Thrown to the consumer, so a streamed response is aborted instead of ending early as if complete
+                        LOGGER.error("Erro ao obter objeto da listagem: ", e);
+                        throw new IllegalStateException("Falha ao listar objetos", e);
+                    }
+                });
+    }
+
+    private Iterable<Result<Item>> iterateObjects(String bucketName, String prefix, String delimiter, int maxKeys,
+                                                  String startAfter) {
+        ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .maxKeys(maxKeys);
+        if (StringUtils.isNotEmpty(prefix)) {
+            args.prefix(prefix);
+        }
+        if (StringUtils.isNotEmpty(delimiter)) {
+            args.delimiter(delimiter);
+        } else {
+            args.recursive(true);
+        }
+        if (startAfter != null) {
+            args.startAfter(startAfter);
+        }
+        return minioClient.listObjects(args.build());
+    }
+
+    private static ObjectEntry toObjectEntry(Item item) {
+        if (item.isDir()) {
+            return ObjectEntry.builder()
+                    .name(item.objectName())
+                    .prefix(true)
+                    .build();
+        }
+        return ObjectEntry.builder()
+                .name(item.objectName())
+                .size(item.size())
+                .etag(StringUtils.strip(item.etag(), "\""))
+                .lastModified(item.lastModified() != null
+                        ? item.lastModified().withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime()
+                        : null)
+                .build();
+    }
+
+    // Random name for an upload: the 32 hex digits of a random UUID, without dashes, followed by the file extension
+    public static String randomObjectName(String fileName) {
+        UUID uuid = UUID.randomUUID();
+        HexFormat hex = HexFormat.of();
+        return hex.toHexDigits(uuid.getMostSignificantBits()) + hex.toHexDigits(uuid.getLeastSignificantBits())
+                + fileName.substring(fileName.lastIndexOf("."));
+    }
+
+    // The token is the last key of the previous page, opaque to clients; after a common prefix it skips the whole prefix
+    private static String encodeContinuationToken(ObjectEntry last) {
+        String startAfter = last.isPrefix() ? last.getName() + AFTER_PREFIX : last.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(startAfter.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeContinuationToken(String continuationToken) {
+        if (StringUtils.isEmpty(continuationToken)) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new FileResponseException("Token de continuação inválido");
+        }
+    }
+
+
     // Delete object from the specified bucket
     @SneakyThrows
     public boolean removeObject(String bucketName, String objectName) {
@@ -258,28 +459,62 @@ public class MinioUtil {
     public String getObjectUrl(String bucketName, String objectName) {
         LOGGER.info("MinioUtil | getObjectUrl is called");
 
-        return Optional.of(bucketName)
+        // A cached URL implies the bucket existed when it was signed, so hits skip the bucket check
+        return presignedUrlCache.get(bucketName, objectName, () -> Optional.of(bucketName)
                 .filter(this::bucketExists)
-                .map(bucket -> {
-                    try {
-                        String url = minioClient.getPresignedObjectUrl(
-                                GetPresignedObjectUrlArgs.builder()
-                                        .method(Method.GET)
-                                        .bucket(bucket)
-                                        .object(objectName)
-                                        .expiry(2, TimeUnit.MINUTES)
-                                        .build());
-                        LOGGER.info("MinioUtil | getObjectUrl | url : {}", url);
-                        return url;
-                    } catch (Exception e) {
-                        LOGGER.error("Erro ao obter URL do objeto: ", e);
-                        return "";
-                    }
-                })
+                .map(bucket -> presign(bucket, objectName))
                 .orElseGet(() -> {
                     LOGGER.info("MinioUtil | getObjectUrl | bucket não existe");
                     return "";
-                });
+                }));
+    }
+
+
+    // Presigned URLs of one page of objects under a prefix, continued with the token of the listing
+    public PresignedUrls getObjectUrls(String bucketName, String prefix, int maxKeys, String continuationToken) {
+        LOGGER.info("MinioUtil | getObjectUrls is called");
+        LOGGER.info("MinioUtil | getObjectUrls | prefix : {}, maxKeys : {}", prefix, maxKeys);
+
+        if (!bucketExists(bucketName)) {
+            LOGGER.info("MinioUtil | getObjectUrls | bucket não existe");
+            return PresignedUrls.builder().bucketName(bucketName).prefix(prefix).urls(Map.of()).build();
+        }
+
+        // A page is bounded like a listing page, so one request never signs a whole bucket
+        ObjectListing page = listObjects(bucketName, prefix, null, maxKeys, continuationToken);
+
+        // Signing is local CPU work once the bucket region is known, so it is spread over all cores
+        Map<String, String> urls = page.getObjects().parallelStream()
+                .map(ObjectEntry::getName)
+                .collect(Collectors.toMap(
+                        objectName -> objectName,
+                        objectName -> presignedUrlCache.get(bucketName, objectName, () -> presign(bucketName, objectName)),
+                        (first, second) -> first,
+                        LinkedHashMap::new));
+        return PresignedUrls.builder()
+                .bucketName(bucketName)
+                .prefix(prefix)
+                .urls(urls)
+                .truncated(page.isTruncated())
+                .nextContinuationToken(page.getNextContinuationToken())
+                .build();
+    }
+
+    private String presign(String bucketName, String objectName) {
+        try {
+            String url = minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .expiry((int) minioConfig.getPresign().getExpiry().toSeconds(), TimeUnit.SECONDS)
+                            .build());
+            LOGGER.debug("MinioUtil | presign | url : {}", url);
+            return url;
+        } catch (Exception e) {
+            LOGGER.error("Erro ao obter URL do objeto: ", e);
+            return "";
+        }
     }
 
 
@@ -292,7 +527,7 @@ public class MinioUtil {
                 .filter(this::bucketExists)
                 .map(bucket -> {
                     try {
-                        StatObjectResponse stat = minioClient.statObject(
+                        StatObjectResponse stat = statObject(
                                 StatObjectArgs.builder()
                                         .bucket(bucket)
                                         .object(objectName)
@@ -309,6 +544,35 @@ public class MinioUtil {
     }
 
 
+    // Metadata of the object when it exists; a missing object is an expected answer, only real failures are logged
+    public Optional<StatObjectResponse> findObject(String bucketName, String objectName) {
+        if (!bucketExists(bucketName)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build()));
+        } catch (ErrorResponseException e) {
+            if (NOT_FOUND_CODES.contains(e.errorResponse().code())) {
+                LOGGER.debug("MinioUtil | findObject | objeto não existe : {}", objectName);
+            } else {
+                LOGGER.error("Erro ao obter estatísticas do objeto: ", e);
+            }
+            return Optional.empty();
+        } catch (Exception e) {
+            LOGGER.error("Erro ao obter estatísticas do objeto: ", e);
+            return Optional.empty();
+        }
+    }
+
+    public boolean objectExists(String bucketName, String objectName) {
+        return findObject(bucketName, objectName).isPresent();
+    }
+
+
     // Get a file object as a stream from the specified bucket
     @SneakyThrows
     public Optional<InputStream> getObject(String bucketName, String objectName) {
@@ -320,7 +584,7 @@ public class MinioUtil {
                 .filter(stat -> stat.size() > 0)
                 .map(stat -> {
                     try {
-                        InputStream stream = minioClient.getObject(
+                        InputStream stream = getObject(
                                 GetObjectArgs.builder()
                                         .bucket(bucketName)
                                         .object(objectName)
@@ -336,50 +600,144 @@ public class MinioUtil {
     }
 
 
-    // Delete multiple file objects from the specified bucket
+    // Get a byte range of a file object as a stream, length null reads to the end of the object
     @SneakyThrows
-    public boolean removeObject(String bucketName, List<String> objectNames) {
-        LOGGER.info("MinioUtil | removeObject is called");
+    public Optional<InputStream> getObject(String bucketName, String objectName, long offset, Long length) {
+        LOGGER.info("MinioUtil | getObject is called");
+        LOGGER.info("MinioUtil | getObject | offset : {}, length : {}", offset, length);
+
+        try {
+            InputStream stream = getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .offset(offset)
+                            .length(length)
+                            .build()
+            );
+            return Optional.of(stream);
+        } catch (Exception e) {
+            LOGGER.error("Erro ao obter intervalo do objeto: ", e);
+            return Optional.empty();
+        }
+    }
 
-        return Optional.of(bucketName)
-                .filter(this::bucketExists)
-                .map(bucket -> {
-                    try {
-                        List<DeleteObject> deleteObjects = objectNames.stream()
-                                .map(DeleteObject::new)
-                                .collect(Collectors.toList());
 
-                        Iterable<Result<DeleteError>> results = minioClient.removeObjects(
-                                RemoveObjectsArgs.builder()
-                                        .bucket(bucket)
-                                        .objects(deleteObjects)
-                                        .build()
-                        );
+    // Whole object as it was uploaded, decompressed when it is stored compressed
+    public Optional<InputStream> getObjectContent(String bucketName, String objectName) {
+        LOGGER.info("MinioUtil | getObjectContent is called");
+
+        try {
+            GetObjectResponse response = getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build()
+            );
+            return Optional.of(CompressionUtil.isCompressed(response.headers())
+                    ? CompressionUtil.decompress(response)
+                    : response);
+        } catch (Exception e) {
+            LOGGER.error("Erro ao obter objeto: ", e);
+            return Optional.empty();
+        }
+    }
 
-                        boolean hasErrors = StreamSupport.stream(results.spliterator(), false)
-                                .map(result -> {
-                                    try {
-                                        DeleteError error = result.get();
-                                        LOGGER.info("MinioUtil | removeObject | erro ao remover objeto: {} - {}",
-                                                error.objectName(), error.message());
-                                        return true;
-                                    } catch (Exception e) {
-                                        LOGGER.error("Erro ao processar resultado da remoção: ", e);
-                                        return true;
-                                    }
-                                })
-                                .anyMatch(hasError -> hasError);
 
-                        return !hasErrors;
-                    } catch (Exception e) {
-                        LOGGER.error("Erro ao remover objetos: ", e);
-                        return false;
-                    }
-                })
-                .orElseGet(() -> {
-                    LOGGER.info("MinioUtil | removeObject | bucket não existe");
-                    return false;
-                });
+    // Reads are hedged against slow nodes when minio.hedge is enabled
+    private StatObjectResponse statObject(StatObjectArgs args) throws Exception {
+        return hedgedReadUtil.isEnabled() ? hedgedReadUtil.statObject(args) : minioClient.statObject(args);
+    }
+
+    private GetObjectResponse getObject(GetObjectArgs args) throws Exception {
+        return hedgedReadUtil.isEnabled() ? hedgedReadUtil.getObject(args) : minioClient.getObject(args);
+    }
+
+
+    // Delete multiple file objects from the specified bucket, in concurrent batches, reporting the outcome of every key
+    public DeleteResponse removeObject(String bucketName, List<String> objectNames) {
+        return removeObject(bucketName, objectNames, minioConfig.getDelete().getConcurrency(), minioAsyncExecutor);
+    }
+
+    // Same as above with the batches sent one after another on the calling thread, for callers that may already
+    // run on the async pool: waiting there for batches queued behind them on the same pool can exhaust it
+    public DeleteResponse removeObjectInline(String bucketName, List<String> objectNames) {
+        return removeObject(bucketName, objectNames, 1, Runnable::run);
+    }
+
+    private DeleteResponse removeObject(String bucketName, List<String> objectNames, int concurrency, Executor executor) {
+        LOGGER.info("MinioUtil | removeObject is called");
+
+        if (!bucketExists(bucketName)) {
+            throw new FileResponseException("Bucket não encontrado");
+        }
+
+        MinioConfig.Delete delete = minioConfig.getDelete();
+        List<String> keys = List.copyOf(new LinkedHashSet<>(objectNames));
+        int batchSize = Math.max(1, Math.min(delete.getBatchSize(), MAX_DELETE_BATCH_SIZE));
+        int batchCount = (keys.size() + batchSize - 1) / batchSize;
+        LOGGER.info("MinioUtil | removeObject | {} objetos em {} lotes", keys.size(), batchCount);
+
+        List<List<String>> batches = IntStream.range(0, batchCount)
+                .mapToObj(batch -> keys.subList(batch * batchSize, Math.min((batch + 1) * batchSize, keys.size())))
+                .toList();
+        Map<String, ObjectDeleteResult> failures = new HashMap<>();
+        ParallelUtils.map(batches, concurrency, executor, batch -> removeBatch(bucketName, batch))
+                .forEach(batchFailures -> batchFailures.forEach(failure -> failures.put(failure.getObjectName(), failure)));
+
+        List<ObjectDeleteResult> results = keys.stream()
+                .map(key -> failures.getOrDefault(key, ObjectDeleteResult.builder()
+                        .objectName(key)
+                        .deleted(true)
+                        .build()))
+                .toList();
+        LOGGER.info("MinioUtil | removeObject | {} removidos, {} falhas", keys.size() - failures.size(), failures.size());
+
+        return DeleteResponse.builder()
+                .bucketName(bucketName)
+                .deletedCount(keys.size() - failures.size())
+                .failedCount(failures.size())
+                .results(results)
+                .build();
+    }
+
+    // One multi-object delete request; MinIO only reports the keys it failed to delete
+    private List<ObjectDeleteResult> removeBatch(String bucketName, List<String> objectNames) {
+        List<ObjectDeleteResult> failures = new ArrayList<>();
+        try {
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(bucketName)
+                            .objects(objectNames.stream().map(DeleteObject::new).toList())
+                            .build()
+            );
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                LOGGER.info("MinioUtil | removeObject | erro ao remover objeto: {} - {}",
+                        error.objectName(), error.message());
+                failures.add(ObjectDeleteResult.builder()
+                        .objectName(error.objectName())
+                        .errorCode(error.code())
+                        .errorMessage(error.message())
+                        .build());
+            }
+        } catch (Exception e) {
+            // The whole request failed, so none of its keys are known to be deleted
+            LOGGER.error("Erro ao remover objetos: ", e);
+            String errorCode = e instanceof ErrorResponseException errorResponse
+                    ? errorResponse.errorResponse().code()
+                    : e.getClass().getSimpleName();
+            Set<String> reported = failures.stream().map(ObjectDeleteResult::getObjectName).collect(Collectors.toSet());
+            objectNames.stream()
+                    .filter(objectName -> !reported.contains(objectName))
+                    .map(objectName -> ObjectDeleteResult.builder()
+                            .objectName(objectName)
+                            .errorCode(errorCode)
+                            .errorMessage(e.getMessage())
+                            .build())
+                    .forEach(failures::add);
+        }
+        return failures;
     }
 
 }
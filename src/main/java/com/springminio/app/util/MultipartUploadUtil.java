@@ -0,0 +1,152 @@
+package com.springminio.app.util;
+
+import com.springminio.app.config.MinioConfig;
+import io.minio.ObjectWriteArgs;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads large objects over the S3 multipart API with several parts in flight at once.
+ * The input is cut into parts of {@code minio.part-size}; at most {@code minio.multipart.concurrency}
+ * parts are buffered and sending, so heap use is bounded by their product.
+ */
+@Component
+@RequiredArgsConstructor
+public class MultipartUploadUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultipartUploadUtil.class);
+
+    private final MinioMultipartClient multipartClient;
+    private final MinioConfig minioConfig;
+
+
+    // Whether an object of the given size should go through the parallel engine
+    public boolean accepts(long objectSize) {
+        MinioConfig.Multipart multipart = minioConfig.getMultipart();
+        return multipart.isEnabled() && objectSize >= multipart.getThreshold();
+    }
+
+    public ObjectWriteResponse upload(String bucketName, String objectName, String contentType, InputStream inputStream)
+            throws IOException {
+        return upload(bucketName, objectName, contentType, Map.of(), inputStream);
+    }
+
+    // Upload with extra headers stored on the object; the input size does not need to be known
+    public ObjectWriteResponse upload(String bucketName, String objectName, String contentType,
+                                      Map<String, String> headers, InputStream inputStream) throws IOException {
+        LOGGER.info("MultipartUploadUtil | upload is called");
+        LOGGER.info("MultipartUploadUtil | upload | objectName : {}", objectName);
+
+        MinioConfig.Multipart multipart = minioConfig.getMultipart();
+        int partSize = (int) Math.min(Math.max(minioConfig.getPartSize(), ObjectWriteArgs.MIN_MULTIPART_SIZE),
+                Integer.MAX_VALUE - 8);
+        Semaphore permits = new Semaphore(multipart.getConcurrency());
+
+        String uploadId = multipartClient.initiate(bucketName, objectName, contentType, headers).join();
+        LOGGER.info("MultipartUploadUtil | upload | uploadId : {}", uploadId);
+
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            int partNumber = 1;
+            while (failure.get() == null) {
+                permits.acquire();
+                byte[] buffer = new byte[partSize];
+                int length = inputStream.readNBytes(buffer, 0, partSize);
+                if (length == 0 && partNumber > 1) {
+                    permits.release();
+                    break;
+                }
+                if (partNumber > ObjectWriteArgs.MAX_MULTIPART_COUNT) {
+                    permits.release();
+                    throw new IOException("Objeto excede o número máximo de partes: " + ObjectWriteArgs.MAX_MULTIPART_COUNT);
+                }
+
+                CompletableFuture<Part> part = sendPart(bucketName, objectName, uploadId, partNumber, buffer, length, 0)
+                        .whenComplete((uploaded, error) -> {
+                            permits.release();
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                        });
+                parts.add(part);
+
+                if (length < partSize) {
+                    break;
+                }
+                partNumber++;
+            }
+
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).join();
+
+            Part[] uploaded = parts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparingInt(Part::partNumber))
+                    .toArray(Part[]::new);
+
+            ObjectWriteResponse response = multipartClient.complete(bucketName, objectName, uploadId, uploaded).join();
+            LOGGER.info("MultipartUploadUtil | upload | {} partes enviadas", uploaded.length);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(bucketName, objectName, uploadId, parts);
+            throw new IOException("Upload interrompido", e);
+        } catch (CompletionException e) {
+            abort(bucketName, objectName, uploadId, parts);
+            throw new IOException("Erro ao enviar partes do arquivo", e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort(bucketName, objectName, uploadId, parts);
+            throw e;
+        }
+    }
+
+    // Send a part, retrying it alone with exponential backoff when it fails
+    private CompletableFuture<Part> sendPart(String bucketName, String objectName, String uploadId,
+                                             int partNumber, byte[] buffer, int length, int attempt) {
+        MinioConfig.Multipart multipart = minioConfig.getMultipart();
+        return multipartClient.sendPart(bucketName, objectName, uploadId, partNumber, buffer, length)
+                .exceptionallyCompose(error -> {
+                    if (attempt >= multipart.getMaxRetries()) {
+                        LOGGER.error("MultipartUploadUtil | sendPart | parte {} falhou após {} tentativas",
+                                partNumber, attempt + 1);
+                        return CompletableFuture.failedFuture(error);
+                    }
+                    long delay = multipart.getRetryBackoff().toMillis() << attempt;
+                    LOGGER.warn("MultipartUploadUtil | sendPart | parte {} falhou, nova tentativa em {} ms",
+                            partNumber, delay);
+                    return CompletableFuture.supplyAsync(() -> null,
+                                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored ->
+                                    sendPart(bucketName, objectName, uploadId, partNumber, buffer, length, attempt + 1));
+                });
+    }
+
+    // Wait for the parts still in flight, then abort so MinIO drops everything already stored
+    private void abort(String bucketName, String objectName, String uploadId, List<CompletableFuture<Part>> parts) {
+        LOGGER.info("MultipartUploadUtil | abort | uploadId : {}", uploadId);
+        try {
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                    .handle((ignored, error) -> null)
+                    .thenCompose(ignored -> multipartClient.abort(bucketName, objectName, uploadId))
+                    .join();
+        } catch (Exception e) {
+            LOGGER.error("Erro ao abortar upload multipart: ", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.springminio.app.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class ParallelUtils {
+
+    private ParallelUtils() {
+    }
+
+    // Apply the task to every item with at most `concurrency` of them running, results keep the order of the items
+    public static <T, R> List<R> map(List<T> items, int concurrency, Executor executor, Function<T, R> task) {
+        Object[] results = new Object[items.size()];
+        AtomicInteger next = new AtomicInteger();
+
+        // Each worker takes the next item until none is left, so no more than `concurrency` tasks are queued
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < items.size()) {
+                results[index] = task.apply(items.get(index));
+            }
+        };
+        CompletableFuture.allOf(IntStream.range(0, Math.min(Math.max(1, concurrency), items.size()))
+                        .mapToObj(i -> CompletableFuture.runAsync(worker, executor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        @SuppressWarnings("unchecked")
+        List<R> mapped = (List<R>) new ArrayList<>(Arrays.asList(results));
+        return mapped;
+    }
+}
@@ -0,0 +1,68 @@
+package com.springminio.app.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
+
+/**
+ * The copy loops of the download paths, shared by the controllers and by StreamCopyBenchmark so the
+ * benchmark measures the code that serves the requests. The output stream is never closed here.
+ */
+public class StreamCopyUtils {
+
+    private StreamCopyUtils() {
+    }
+
+    // Copy a stream to the output and close it; returns the number of bytes copied
+    public static long copy(InputStream inputStream, OutputStream out) throws IOException {
+        try (InputStream in = inputStream) {
+            return in.transferTo(out);
+        }
+    }
+
+    // Copy a byte range of a local file, length null reads to the end; a missing file throws NoSuchFileException.
+    // The output is no file channel, so the bytes go through a buffer of the channel adapter
+    public static long copyFile(Path file, long offset, Long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = offset;
+            long remaining = length != null ? length : channel.size() - offset;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Arquivo truncado: " + file);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+            return position - offset;
+        }
+    }
+
+    // Inflate the deflated bytes the writer produces into the output
+    public static void inflate(OutputStream out, Writer writer) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            InflaterOutputStream inflating = new InflaterOutputStream(out, inflater);
+            writer.writeTo(inflating);
+            inflating.finish();
+        } finally {
+            // The output stays open, so the native inflater is released here rather than on close
+            inflater.end();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Writer {
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,97 @@
+package com.springminio.app.util;
+
+import com.springminio.app.cache.ContentIndex;
+import com.springminio.app.payload.FileResponse;
+import io.minio.StatObjectResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Stores an uploaded file whose type is already known, the same way for the blocking and the asynchronous
+ * API: under a random name, or under its content digest when deduplication is enabled, compressed and split
+ * into parts by {@link MinioUtil#uploadObject} as configured.
+ */
+@Component
+@RequiredArgsConstructor
+public class UploadUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadUtil.class);
+
+    private final MinioUtil minioUtil;
+    private final ContentIndex contentIndex;
+
+
+    // The bucket must exist; upload is the typed stream the file type was detected on, read from where detection left it
+    public FileResponse store(String bucketName, MultipartFile multipartFile, FileTypeUtils.TypedStream upload,
+                              String fileType) throws Exception {
+        String fileName = multipartFile.getOriginalFilename();
+        String extension = fileName.substring(fileName.lastIndexOf("."));
+        long fileSize = multipartFile.getSize();
+        LocalDateTime createdTime = LocalDateTime.now();
+
+        if (!contentIndex.isEnabled()) {
+            String objectName = MinioUtil.randomObjectName(fileName);
+            LOGGER.debug("UploadUtil | store | objectName : {}", objectName);
+
+            minioUtil.uploadObject(bucketName, upload.inputStream(), fileSize, objectName, fileType);
+            return FileResponse.builder()
+                    .filename(objectName)
+                    .fileSize(fileSize)
+                    .contentType(fileType)
+                    .createdTime(createdTime)
+                    .build();
+        }
+
+        // The local copy of the upload is hashed first, so content already stored never travels to MinIO again
+        String digest = sha256(upload.inputStream());
+        String objectName = digest + extension;
+        Optional<String> stored = contentIndex.retain(bucketName, digest, objectName,
+                stat -> contentSize(stat) == fileSize,
+                () -> {
+                    try (InputStream inputStream = multipartFile.getInputStream()) {
+                        minioUtil.uploadObject(bucketName, inputStream, fileSize, objectName, fileType);
+                    }
+                });
+        String filename = stored.orElse(objectName);
+        LOGGER.debug("UploadUtil | store | objectName : {}, deduplicated : {}", filename, stored.isPresent());
+
+        return FileResponse.builder()
+                .filename(filename)
+                .fileSize(fileSize)
+                .contentType(fileType)
+                .createdTime(createdTime)
+                .deduplicated(stored.isPresent())
+                .build();
+    }
+
+    // Size of the upload an object holds; a compressed one only records it in its metadata
+    private static long contentSize(StatObjectResponse stat) {
+        return CompressionUtil.isCompressed(stat) ? CompressionUtil.originalSize(stat).orElse(-1L) : stat.size();
+    }
+
+    private static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,61 @@
+package com.springminio.app.aop;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.util.MinioUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MinioConcurrencyAspectTest {
+
+    private final MinioUtil target = mock(MinioUtil.class);
+    private final MinioUtil minioUtil;
+
+    MinioConcurrencyAspectTest() {
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.setMaxConcurrentCalls(1);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MinioConcurrencyAspect(minioConfig));
+        minioUtil = factory.getProxy();
+    }
+
+    @Test
+    void limitConcurrentCalls_ObjectStreamsKeepTheirPermitUntilClosed() throws Exception {
+        when(target.getObjectContent("photos", "a.png")).thenReturn(Optional.of(new ByteArrayInputStream(new byte[4])));
+        when(target.objectExists("photos", "b.png")).thenReturn(true);
+
+        InputStream content = minioUtil.getObjectContent("photos", "a.png").orElseThrow();
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> minioUtil.objectExists("photos", "b.png"));
+        Thread.sleep(200);
+        assertFalse(waiting.isDone());
+
+        content.close();
+        assertEquals(true, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> waiting.join()));
+    }
+
+    @Test
+    void limitConcurrentCalls_ListingStreamsHoldNoPermit() {
+        when(target.streamObjects("photos", null, null)).thenReturn(Stream.of(new ObjectEntry(), new ObjectEntry()));
+
+        // Objects are opened while the listing is still being consumed, as for the ZIP of a prefix
+        try (Stream<ObjectEntry> entries = minioUtil.streamObjects("photos", null, null)) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                entries.forEach(entry -> minioUtil.objectExists("photos", "a.png"));
+            });
+        }
+    }
+}
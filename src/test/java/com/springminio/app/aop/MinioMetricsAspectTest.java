@@ -0,0 +1,96 @@
+package com.springminio.app.aop;
+
+import com.springminio.app.service.AsyncMinioService;
+import com.springminio.app.util.MinioUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MinioMetricsAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void measure_TagsOperationAndOutcome() {
+        MinioUtil target = mock(MinioUtil.class);
+        when(target.statObject("photos", "a.png")).thenReturn(Optional.empty());
+        when(target.bucketExists(any())).thenThrow(new IllegalStateException("falha"));
+        MinioUtil minioUtil = proxy(target);
+
+        minioUtil.statObject("photos", "a.png");
+        assertThrows(IllegalStateException.class, () -> minioUtil.bucketExists(""));
+
+        assertEquals(1, meterRegistry.get("minio.operation")
+                .tags("component", "util", "operation", "statObject", "outcome", "empty")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("minio.operation")
+                .tags("operation", "bucketExists", "outcome", "error")
+                .timer().count());
+        // Bucket names come from request paths, so they never become tags
+        assertNull(meterRegistry.find("minio.operation").tagKeys("bucket").timer());
+        assertEquals(0, meterRegistry.get("minio.operation.active").tag("operation", "statObject").gauge().value());
+    }
+
+    @Test
+    void measure_ReadsFailuresFromSwallowedErrors() {
+        MinioUtil target = mock(MinioUtil.class);
+        when(target.removeObject("photos", "a.png")).thenReturn(false);
+        when(target.objectExists("photos", "a.png")).thenReturn(false);
+        when(target.makeBucket("photos")).thenReturn(true);
+        MinioUtil minioUtil = proxy(target);
+
+        minioUtil.removeObject("photos", "a.png");
+        minioUtil.objectExists("photos", "a.png");
+        minioUtil.makeBucket("photos");
+        minioUtil.makeBucket("photos");
+        // A null where a value is expected means the error was swallowed
+        minioUtil.getObjectUrl("photos", "a.png");
+
+        assertEquals(1, meterRegistry.get("minio.operation")
+                .tags("operation", "removeObject", "outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("minio.operation")
+                .tags("operation", "objectExists", "outcome", "empty").timer().count());
+        assertEquals(2, meterRegistry.get("minio.operation")
+                .tags("operation", "makeBucket", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("minio.operation")
+                .tags("operation", "getObjectUrl", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    void measure_TimesAsyncCallsUntilTheirFutureCompletes() {
+        AsyncMinioService target = mock(AsyncMinioService.class);
+        CompletableFuture<Boolean> removal = new CompletableFuture<>();
+        when(target.removeObject("photos", "a.png")).thenReturn(removal);
+        AsyncMinioService asyncMinioService = proxy(target);
+
+        asyncMinioService.removeObject("photos", "a.png");
+        assertEquals(1, meterRegistry.get("minio.operation.active")
+                .tags("component", "async", "operation", "removeObject").gauge().value());
+        assertNull(meterRegistry.find("minio.operation").tag("component", "async").timer());
+
+        removal.completeExceptionally(new IllegalStateException("falha"));
+        assertEquals(0, meterRegistry.get("minio.operation.active")
+                .tags("component", "async", "operation", "removeObject").gauge().value());
+        assertEquals(1, meterRegistry.get("minio.operation")
+                .tags("component", "async", "operation", "removeObject", "outcome", "error")
+                .timer().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MinioMetricsAspect(meterRegistry));
+        return (T) factory.getProxy();
+    }
+}
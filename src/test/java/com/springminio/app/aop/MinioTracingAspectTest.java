@@ -0,0 +1,105 @@
+package com.springminio.app.aop;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.util.MinioUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MinioTracingAspectTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(MinioTracingAspect.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final MinioConfig minioConfig = new MinioConfig();
+    private final MinioUtil target = mock(MinioUtil.class);
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void trace_NestedCallsShareTheTraceOfTheirParent() {
+        minioConfig.getTracing().setSampleRate(1);
+        MinioUtil minioUtil = proxy();
+        when(target.objectExists("photos", "a.png")).thenAnswer(invocation ->
+                minioUtil.findObject("photos", "a.png").isPresent());
+        when(target.findObject("photos", "a.png")).thenReturn(Optional.empty());
+
+        minioUtil.objectExists("photos", "a.png");
+        minioUtil.objectExists("photos", "a.png");
+
+        // Inner spans end first: inner, outer, inner, outer
+        List<Object[]> spans = spans();
+        assertEquals(4, spans.size());
+        Object[] inner = spans.get(0);
+        Object[] outer = spans.get(1);
+        assertEquals(outer[0], inner[0]);
+        assertEquals(outer[1], inner[2]);
+        assertEquals("0", outer[2]);
+        // The next top-level call starts a trace of its own
+        assertNotEquals(outer[0], spans.get(3)[0]);
+        assertEquals("0", spans.get(3)[2]);
+    }
+
+    @Test
+    void trace_UnsampledCallsAndTheirChildrenLogNoSpans() {
+        minioConfig.getTracing().setSampleRate(0);
+        MinioUtil minioUtil = proxy();
+        when(target.objectExists("photos", "a.png")).thenAnswer(invocation ->
+                minioUtil.findObject("photos", "a.png").isPresent());
+        when(target.findObject("photos", "a.png")).thenReturn(Optional.empty());
+
+        minioUtil.objectExists("photos", "a.png");
+
+        assertEquals(0, spans().size());
+    }
+
+    @Test
+    void aspect_IsOnlyRegisteredWhenEnabled() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                // A plain singleton, so the beans MinioConfig declares are left out of the context
+                .withInitializer(context -> context.getBeanFactory().registerSingleton("minioConfig", minioConfig))
+                .withUserConfiguration(MinioTracingAspect.class);
+
+        runner.run(context -> assertThat(context).doesNotHaveBean(MinioTracingAspect.class));
+        runner.withPropertyValues("minio.tracing.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(MinioTracingAspect.class));
+    }
+
+    private MinioUtil proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MinioTracingAspect(minioConfig));
+        return factory.getProxy();
+    }
+
+    // Arguments of every span line: trace, span, parent, operation, duration and outcome
+    private List<Object[]> spans() {
+        return appender.list.stream()
+                .filter(event -> event.getMessage().startsWith("MinioTracingAspect | span"))
+                .map(ILoggingEvent::getArgumentArray)
+                .toList();
+    }
+}
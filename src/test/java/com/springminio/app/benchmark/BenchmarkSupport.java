@@ -0,0 +1,16 @@
+package com.springminio.app.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    // Forks run without Spring, so logback falls back to DEBUG on the console; keep log I/O out of the numbers
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
@@ -0,0 +1,66 @@
+package com.springminio.app.benchmark;
+
+import com.springminio.app.config.MinioConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform against virtual threads for minioAsyncExecutor, the executor of the blocking storage calls.
+ * A batch of tasks is fanned out and joined; each task waits as long as a MinIO round trip, or not at all
+ * to expose the scheduling overhead alone. The executor is built by MinioConfig for each value of
+ * {@code spring.threads.virtual.enabled}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorBenchmark {
+
+    @Param({"false", "true"})
+    private String virtualThreads;
+
+    @Param({"0", "2"})
+    private int latencyMillis;
+
+    @Param({"256"})
+    private int tasks;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", virtualThreads);
+        executor = new MinioConfig().minioAsyncExecutor(environment);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void fanOut() {
+        Duration latency = Duration.ofMillis(latencyMillis);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+        for (int i = 0; i < tasks; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                if (!latency.isZero()) {
+                    try {
+                        Thread.sleep(latency);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
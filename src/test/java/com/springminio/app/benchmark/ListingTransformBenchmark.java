@@ -0,0 +1,84 @@
+package com.springminio.app.benchmark;
+
+import com.springminio.app.cache.BucketRegistry;
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.payload.ObjectListing;
+import com.springminio.app.util.MinioUtil;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.Xml;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The listing transforms of MinioUtil on an in-memory page of results: a paginated listing
+ * (entry mapping, sort, cut and continuation token) and the streamed listing. The client only
+ * hands back pre-parsed items, so no HTTP or XML cost is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListingTransformBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    @Param({"100", "999"})
+    private int pageSize;
+
+    private MinioUtil minioUtil;
+    private String continuationToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+
+        List<Result<Item>> page = parsePage(pageSize + 1).contents().stream()
+                .map(item -> new Result<Item>(item))
+                .toList();
+        MinioClient client = new MinioClient(MinioClient.builder().endpoint("http://127.0.0.1:9000").build()) {
+            @Override
+            public Iterable<Result<Item>> listObjects(ListObjectsArgs args) {
+                return page;
+            }
+        };
+        BucketRegistry bucketRegistry = new BucketRegistry(client);
+        bucketRegistry.register(BUCKET);
+        minioUtil = new MinioUtil(client, new MinioConfig(), null, null, bucketRegistry, null, null, null);
+        continuationToken = minioUtil.listObjects(BUCKET, null, null, pageSize, null).getNextContinuationToken();
+    }
+
+    @Benchmark
+    public ObjectListing listPage() {
+        return minioUtil.listObjects(BUCKET, "fotos/", null, pageSize, continuationToken);
+    }
+
+    @Benchmark
+    public void streamObjects(Blackhole blackhole) {
+        minioUtil.streamObjects(BUCKET, "fotos/", null).forEach(blackhole::consume);
+    }
+
+    // A ListObjectsV2 response with the given number of keys, parsed the way the client parses it
+    private static ListBucketResultV2 parsePage(int keys) throws Exception {
+        StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(BUCKET).append("</Name><Prefix>fotos/</Prefix>")
+                .append("<KeyCount>").append(keys).append("</KeyCount><MaxKeys>1000</MaxKeys>")
+                .append("<IsTruncated>false</IsTruncated>");
+        for (int i = 0; i < keys; i++) {
+            xml.append("<Contents><Key>fotos/").append(String.format("%08d", i)).append(".jpg</Key>")
+                    .append("<LastModified>2024-05-01T12:00:00.000Z</LastModified>")
+                    .append("<ETag>\"9b2cf535f27731c974343645a3985328\"</ETag>")
+                    .append("<Size>").append(1024L * (i + 1)).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        return Xml.unmarshal(ListBucketResultV2.class, xml.append("</ListBucketResult>").toString());
+    }
+}
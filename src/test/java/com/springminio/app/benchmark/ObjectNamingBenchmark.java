@@ -0,0 +1,32 @@
+package com.springminio.app.benchmark;
+
+import com.springminio.app.util.MinioUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of naming an upload: the former regex strip of the UUID dashes against the hex formatting
+ * of MinioUtil.randomObjectName. Both produce the same 32 hex digits plus extension.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectNamingBenchmark {
+
+    private final String fileName = "relatorio-mensal.final.pdf";
+
+    @Benchmark
+    public String regexReplace() {
+        return UUID.randomUUID().toString().replaceAll("-", "") + fileName.substring(fileName.lastIndexOf("."));
+    }
+
+    @Benchmark
+    public String randomObjectName() {
+        return MinioUtil.randomObjectName(fileName);
+    }
+}
@@ -0,0 +1,95 @@
+package com.springminio.app.benchmark;
+
+import com.springminio.app.util.StreamCopyUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * The copy loops of MinioController.download, called through StreamCopyUtils as the controller does:
+ * a MinIO stream, a cached file, and a deflated object inflated on the way out.
+ * The source hides its backing array and the response copies into a socket-sized buffer, so neither
+ * side can short-cut the copy and the numbers are the copy cost alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamCopyBenchmark {
+
+    @Param({"65536", "8388608"})
+    private int size;
+
+    private byte[] content;
+    private byte[] deflated;
+    private Path cached;
+    private final SocketBuffer socket = new SocketBuffer();
+
+    @Setup
+    public void setUp() throws IOException {
+        // Half random, half repeated bytes, so the deflated copy is neither incompressible nor trivial
+        content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        for (int i = 0; i < size; i += 2) {
+            content[i] = 'a';
+        }
+        try (InputStream in = new DeflaterInputStream(new ByteArrayInputStream(content))) {
+            deflated = in.readAllBytes();
+        }
+        cached = Files.createTempFile("stream-copy", ".bin");
+        Files.write(cached, content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cached);
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        return StreamCopyUtils.copy(new FilterInputStream(new ByteArrayInputStream(content)) {
+        }, socket);
+    }
+
+    @Benchmark
+    public long fileChannel() throws IOException {
+        return StreamCopyUtils.copyFile(cached, 0, null, socket);
+    }
+
+    @Benchmark
+    public void inflate() throws IOException {
+        StreamCopyUtils.inflate(socket, out -> StreamCopyUtils.copy(new ByteArrayInputStream(deflated), out));
+    }
+
+    // Stands in for the servlet output, copying every write into a fixed buffer like a socket send buffer
+    private static class SocketBuffer extends OutputStream {
+
+        private final byte[] buffer = new byte[64 * 1024];
+
+        @Override
+        public void write(int b) {
+            buffer[0] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int chunk = Math.min(len, buffer.length);
+                System.arraycopy(b, off, buffer, 0, chunk);
+                off += chunk;
+                len -= chunk;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.springminio.app.cache;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.load.S3Stub;
+import com.springminio.app.util.CompressionUtil;
+import com.springminio.app.util.HedgedReadUtil;
+import com.springminio.app.util.MinioMultipartClient;
+import com.springminio.app.util.MinioUtil;
+import com.springminio.app.util.MultipartUploadUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentIndexTest {
+
+    private static final String BUCKET = "dedup";
+    private static final String DIGEST = "ab".repeat(32);
+    private static final String OBJECT = DIGEST + ".pdf";
+
+    private final S3Stub stub = S3Stub.start(Duration.ZERO, 0);
+    private final MinioConfig minioConfig = new MinioConfig();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final MinioUtil minioUtil;
+    private final ContentIndex contentIndex;
+
+    ContentIndexTest() throws Exception {
+        String endpoint = "http://127.0.0.1:" + stub.port();
+        MinioClient client = MinioClient.builder().endpoint(endpoint).credentials("minioadmin", "minioadmin")
+                .region("us-east-1").build();
+        MinioAsyncClient asyncClient = MinioAsyncClient.builder().endpoint(endpoint)
+                .credentials("minioadmin", "minioadmin").region("us-east-1").build();
+        minioConfig.getDedup().setEnabled(true);
+
+        minioUtil = new MinioUtil(client, minioConfig,
+                new MultipartUploadUtil(new MinioMultipartClient(asyncClient), minioConfig),
+                new PresignedUrlCache(minioConfig), new BucketRegistry(client), executor,
+                new CompressionUtil(minioConfig), new HedgedReadUtil(null, minioConfig, new SimpleMeterRegistry()));
+        contentIndex = new ContentIndex(minioConfig, minioUtil);
+        minioUtil.makeBucket(BUCKET);
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    void concurrentUploadOfTheSameContentWaitsUntilItIsStored() throws Exception {
+        CountDownLatch uploading = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        CompletableFuture<Optional<String>> first = CompletableFuture.supplyAsync(() -> retain(() -> {
+            uploading.countDown();
+            proceed.await();
+            store();
+        }), executor);
+        assertTrue(uploading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Optional<String>> second = CompletableFuture.supplyAsync(() -> retain(this::store), executor);
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+
+        proceed.countDown();
+        assertEquals(Optional.empty(), first.join());
+        assertEquals(Optional.of(OBJECT), second.join());
+        assertTrue(minioUtil.objectExists(BUCKET, OBJECT));
+
+        // One reference per upload: the content outlives the first delete
+        assertTrue(contentIndex.release(BUCKET, OBJECT));
+        assertTrue(minioUtil.objectExists(BUCKET, OBJECT));
+        assertTrue(contentIndex.release(BUCKET, OBJECT));
+        assertFalse(minioUtil.objectExists(BUCKET, OBJECT));
+    }
+
+    @Test
+    void failedUploadLeavesNeitherAReferenceNorAnIndexEntry() throws Exception {
+        assertThrows(IOException.class, () -> contentIndex.retain(BUCKET, DIGEST, OBJECT, stat -> true, () -> {
+            throw new IOException("conexão perdida");
+        }));
+        assertEquals(Optional.empty(), contentIndex.find(BUCKET, DIGEST));
+
+        // The next upload stores the content itself, and its single reference is the last one
+        assertEquals(Optional.empty(), contentIndex.retain(BUCKET, DIGEST, OBJECT, stat -> true, this::store));
+        assertTrue(contentIndex.release(BUCKET, OBJECT));
+        assertFalse(minioUtil.objectExists(BUCKET, OBJECT));
+    }
+
+    private Optional<String> retain(ContentIndex.ContentUpload upload) {
+        try {
+            return contentIndex.retain(BUCKET, DIGEST, OBJECT, stat -> true, upload);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void store() throws Exception {
+        minioUtil.uploadObject(BUCKET, new ByteArrayInputStream(new byte[32]), 32, OBJECT, "application/pdf");
+    }
+}
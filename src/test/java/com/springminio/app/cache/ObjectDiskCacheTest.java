@@ -0,0 +1,101 @@
+package com.springminio.app.cache;
+
+import com.springminio.app.config.MinioConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectDiskCacheTest {
+
+    private static final String BUCKET_NAME = "test-bucket";
+    private static final byte[] CONTENT = "0123456789".getBytes();
+
+    @TempDir
+    Path directory;
+
+    private ObjectDiskCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.getCache().setEnabled(true);
+        minioConfig.getCache().setDirectory(directory.resolve("cache").toString());
+        minioConfig.getCache().setMaxBytes(2L * CONTENT.length);
+        minioConfig.getCache().setMinHits(2);
+        cache = new ObjectDiskCache(minioConfig);
+        cache.init();
+    }
+
+    @Test
+    void get_AdmitsObjectAfterMinHitsAndServesItLocally() throws Exception {
+        assertTrue(get("a.png", "etag-1").isEmpty());
+
+        Path cached = get("a.png", "etag-1").orElseThrow();
+        assertArrayEquals(CONTENT, Files.readAllBytes(cached));
+        assertEquals(cached, get("a.png", "etag-1").orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_ChangedEtag_ReloadsObject() {
+        get("a.png", "etag-1");
+        Path first = get("a.png", "etag-1").orElseThrow();
+
+        Path second = get("a.png", "etag-2").orElseThrow();
+
+        assertTrue(Files.notExists(first));
+        assertTrue(Files.exists(second));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_FullCache_EvictsLeastFrequentlyReadObject() {
+        for (int i = 0; i < 3; i++) {
+            get("hot.png", "etag");
+        }
+        get("cold.png", "etag");
+        Path cold = get("cold.png", "etag").orElseThrow();
+
+        for (int i = 0; i < 3; i++) {
+            get("new.png", "etag");
+        }
+
+        assertTrue(Files.notExists(cold));
+        assertTrue(get("hot.png", "etag").isPresent());
+        assertTrue(get("new.png", "etag").isPresent());
+    }
+
+    @Test
+    void find_NeverLoadsNorCountsAsARead() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.find(BUCKET_NAME, "a.png", "etag-1").isEmpty());
+        }
+        assertTrue(get("a.png", "etag-1").isEmpty());
+        assertEquals(0, loads.get());
+
+        Path cached = get("a.png", "etag-1").orElseThrow();
+        assertEquals(cached, cache.find(BUCKET_NAME, "a.png", "etag-1").orElseThrow());
+        assertTrue(cache.find(BUCKET_NAME, "a.png", "etag-2").isEmpty());
+    }
+
+    private Optional<Path> get(String objectName, String etag) {
+        Supplier<Optional<InputStream>> loader = () -> {
+            loads.incrementAndGet();
+            return Optional.of(new ByteArrayInputStream(CONTENT));
+        };
+        return cache.get(BUCKET_NAME, objectName, etag, CONTENT.length, loader);
+    }
+}
@@ -0,0 +1,163 @@
+package com.springminio.app.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinioEndpointPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final Set<String> hostHeaders = ConcurrentHashMap.newKeySet();
+
+    private final List<Closeable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void stop() throws IOException {
+        servers.forEach(server -> server.stop(0));
+        for (Closeable closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void spreadsRequestsOverTheNodesAndKeepsTheSignedHost() throws IOException {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        OkHttpClient client = client(List.of(node(first), node(second)));
+
+        for (int i = 0; i < 200; i++) {
+            call(client);
+        }
+
+        assertEquals(200, first.get() + second.get());
+        assertTrue(first.get() > 20 && second.get() > 20, first + " / " + second);
+        assertEquals(Set.of("minio.example:9000"), hostHeaders);
+    }
+
+    @Test
+    void failsOverAndEjectsANodeThatRefusesConnections() throws IOException {
+        AtomicInteger live = new AtomicInteger();
+        String dead = node(new AtomicInteger());
+        servers.remove(servers.size() - 1).stop(0);
+        OkHttpClient client = client(List.of(dead, node(live)));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(200, call(client));
+        }
+
+        assertEquals(20, live.get());
+        assertEquals(0, meterRegistry.get("minio.endpoint.healthy")
+                .tag("endpoint", dead.substring("http://".length())).gauge().value());
+    }
+
+    @Test
+    void failsOverOnAConnectTimeoutButNeverResendsAfterAReadTimeout() throws IOException {
+        AtomicInteger live = new AtomicInteger();
+        OkHttpClient client = client(List.of(unreachableNode(), node(live)));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call(client));
+        }
+        assertEquals(5, live.get());
+
+        // A node that accepts the connection and never answers may have got the request
+        AtomicInteger other = new AtomicInteger();
+        OkHttpClient silent = client(List.of(silentNode(), node(other)));
+        int timeouts = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                call(silent);
+            } catch (SocketTimeoutException e) {
+                timeouts++;
+            }
+        }
+        assertEquals(10, other.get() + timeouts);
+    }
+
+    private OkHttpClient client(List<String> endpoints) {
+        MinioEndpointPool pool = new MinioEndpointPool(endpoints, 3, new OkHttpClient(), meterRegistry);
+        return new OkHttpClient.Builder()
+                .addInterceptor(pool)
+                .addNetworkInterceptor(pool.connectionTracker())
+                .connectTimeout(Duration.ofMillis(300))
+                .readTimeout(Duration.ofMillis(300))
+                .retryOnConnectionFailure(false)
+                .build();
+    }
+
+    // A listener whose backlog is full and never drained: the kernel drops new handshakes, so connects time out
+    private String unreachableNode() throws IOException {
+        ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        closeables.add(listener);
+        for (int i = 0; i < 8; i++) {
+            Socket filler = new Socket();
+            closeables.add(filler);
+            try {
+                filler.connect(listener.getLocalSocketAddress(), 100);
+            } catch (SocketTimeoutException e) {
+                return "http://127.0.0.1:" + listener.getLocalPort();
+            }
+        }
+        throw new IllegalStateException("backlog nunca encheu");
+    }
+
+    private String silentNode() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private int call(OkHttpClient client) throws IOException {
+        try (Response response = client.newCall(new Request.Builder()
+                .url("http://minio.example:9000/commons/object")
+                .header("Host", "minio.example:9000")
+                .build()).execute()) {
+            return response.code();
+        }
+    }
+
+    private String node(AtomicInteger requests) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            hostHeaders.add(exchange.getRequestHeaders().getFirst("Host"));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
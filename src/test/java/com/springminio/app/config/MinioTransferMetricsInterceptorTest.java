@@ -0,0 +1,56 @@
+package com.springminio.app.config;
+
+import com.springminio.app.load.S3Stub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MinioTransferMetricsInterceptorTest {
+
+    private final S3Stub stub;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    MinioTransferMetricsInterceptorTest() throws Exception {
+        stub = S3Stub.start(Duration.ZERO, 0);
+    }
+
+    @AfterEach
+    void stop() {
+        stub.close();
+    }
+
+    @Test
+    void countsTheBodyBytesSentAndReceived() throws Exception {
+        MinioClient client = MinioClient.builder()
+                .endpoint("http://127.0.0.1:" + stub.port())
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .httpClient(new OkHttpClient.Builder()
+                        .addNetworkInterceptor(new MinioTransferMetricsInterceptor(meterRegistry))
+                        .build())
+                .build();
+        client.makeBucket(MakeBucketArgs.builder().bucket("transfer").build());
+
+        client.putObject(PutObjectArgs.builder().bucket("transfer").object("a.bin")
+                .stream(new ByteArrayInputStream(new byte[1500]), 1500, -1).build());
+        try (GetObjectResponse response = client.getObject(
+                GetObjectArgs.builder().bucket("transfer").object("a.bin").build())) {
+            response.transferTo(OutputStream.nullOutputStream());
+        }
+
+        assertEquals(1500, meterRegistry.get("minio.transfer.bytes").tag("direction", "upload").counter().count());
+        assertEquals(1500, meterRegistry.get("minio.transfer.bytes").tag("direction", "download").counter().count());
+    }
+}
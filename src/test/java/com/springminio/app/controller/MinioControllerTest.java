@@ -2,26 +2,47 @@ package com.springminio.app.controller;
 
 import com.springminio.app.exception.FileResponseException;
 import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.ObjectEntry;
 import com.springminio.app.service.MinioService;
 import com.springminio.app.util.FileTypeUtils;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mockStatic;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(MinioController.class)
@@ -62,24 +83,16 @@ public class MinioControllerTest {
                 .createdTime(LocalDateTime.now())
                 .build();
 
-        // Corrigindo o mock estático
-        MockedStatic<FileTypeUtils> fileTypeUtilsMock = mockStatic(FileTypeUtils.class);
-        fileTypeUtilsMock.when(() -> FileTypeUtils.getFileType(any())).thenReturn(CONTENT_TYPE);
-
-        when(minioService.putObject(mockFile, BUCKET_NAME, CONTENT_TYPE))
+        when(minioService.putObject(mockFile, BUCKET_NAME))
                 .thenReturn(mockedResponse);
 
-        try {
-            mockMvc.perform(MockMvcRequestBuilders.multipart("/minio/upload")
-                            .file(mockFile)
-                            .param("bucketName", BUCKET_NAME))
-                    .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.filename", is(FILENAME)))
-                    .andExpect(jsonPath("$.contentType", is(CONTENT_TYPE)))
-                    .andExpect(jsonPath("$.fileSize", is((int) CONTENT.getBytes().length)));
-        } finally {
-            fileTypeUtilsMock.close();
-        }
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/minio/upload")
+                        .file(mockFile)
+                        .param("bucketName", BUCKET_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filename", is(FILENAME)))
+                .andExpect(jsonPath("$.contentType", is(CONTENT_TYPE)))
+                .andExpect(jsonPath("$.fileSize", is((int) CONTENT.getBytes().length)));
     }
 
     @Test
@@ -101,16 +114,164 @@ public class MinioControllerTest {
                 CONTENT.getBytes()
         );
 
-        // Criando o mock estático corretamente
-        try (MockedStatic<FileTypeUtils> fileTypeUtilsMock = mockStatic(FileTypeUtils.class)) {
-            fileTypeUtilsMock.when(() -> FileTypeUtils.getFileType(any()))
-                    .thenThrow(new FileResponseException("Tipo de arquivo não suportado"));
+        // Detection happens in the service, which rejects the file
+        when(minioService.putObject(any(), any()))
+                .thenThrow(new FileResponseException("Tipo de arquivo não suportado"));
 
-            mockMvc.perform(MockMvcRequestBuilders.multipart("/minio/upload")
-                            .file(mockFile)
-                            .param("bucketName", BUCKET_NAME))
-                    .andExpect(status().isBadRequest());
-        }
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/minio/upload")
+                        .file(mockFile)
+                        .param("bucketName", BUCKET_NAME))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void download_SingleRange_ReturnsPartialContent() throws Exception {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn((long) CONTENT.length());
+        when(stat.contentType()).thenReturn(CONTENT_TYPE);
+        when(minioService.statObject(BUCKET_NAME, FILENAME)).thenReturn(Optional.of(stat));
+        when(minioService.downloadObject(BUCKET_NAME, FILENAME, 5L, 4L))
+                .thenReturn(Optional.of(new ByteArrayInputStream(CONTENT.substring(5, 9).getBytes())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/minio/download/{bucketName}/{objectName}", BUCKET_NAME, FILENAME)
+                        .header(HttpHeaders.RANGE, "bytes=5-8"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-8/" + CONTENT.length()))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().string("Cont"));
+
+        verify(minioService).cachedObject(BUCKET_NAME, FILENAME, stat, false);
     }
 
-}
\ No newline at end of file
+    @Test
+    void download_UnsatisfiableRangeAmongOthers_ServesTheSatisfiableOne() throws Exception {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn((long) CONTENT.length());
+        when(stat.contentType()).thenReturn(CONTENT_TYPE);
+        when(minioService.statObject(BUCKET_NAME, FILENAME)).thenReturn(Optional.of(stat));
+        when(minioService.downloadObject(BUCKET_NAME, FILENAME, 5L, 4L))
+                .thenReturn(Optional.of(new ByteArrayInputStream(CONTENT.substring(5, 9).getBytes())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/minio/download/{bucketName}/{objectName}", BUCKET_NAME, FILENAME)
+                        .header(HttpHeaders.RANGE, "bytes=100-200,5-8"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-8/" + CONTENT.length()))
+                .andExpect(content().string("Cont"));
+    }
+
+    @Test
+    void download_UnsatisfiableRange_ReturnsRangeNotSatisfiable() throws Exception {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn((long) CONTENT.length());
+        when(minioService.statObject(BUCKET_NAME, FILENAME)).thenReturn(Optional.of(stat));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/minio/download/{bucketName}/{objectName}", BUCKET_NAME, FILENAME)
+                        .header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT.length()));
+
+        verify(minioService, never()).downloadObject(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void download_MatchingIfNoneMatch_ReturnsNotModifiedWithoutOpeningStream() throws Exception {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn((long) CONTENT.length());
+        when(stat.etag()).thenReturn("0123456789abcdef");
+        when(stat.lastModified()).thenReturn(ZonedDateTime.now(ZoneOffset.UTC).minusDays(1));
+        when(minioService.statObject(BUCKET_NAME, FILENAME)).thenReturn(Optional.of(stat));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/minio/download/{bucketName}/{objectName}", BUCKET_NAME, FILENAME)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0123456789abcdef\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0123456789abcdef\""));
+
+        verify(minioService, never()).downloadObject(any(), any(), anyLong(), any());
+    }
+
+
+    @Test
+    void streamObjects_WritesOneJsonLinePerObject() throws Exception {
+        when(minioService.streamObjects(BUCKET_NAME, "docs/", null)).thenReturn(Stream.of(
+                ObjectEntry.builder().name("docs/a.txt").size(1L).build(),
+                ObjectEntry.builder().name("docs/b.txt").size(2L).build()));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/minio/stream/{bucketName}", BUCKET_NAME)
+                        .param("prefix", "docs/"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"name\":\"docs/a.txt\",\"size\":1,\"prefix\":false}\n"
+                                + "{\"name\":\"docs/b.txt\",\"size\":2,\"prefix\":false}\n"));
+    }
+
+    @Test
+    void uploadFiles_ReturnsOneResponsePerFile() throws Exception {
+        MockMultipartFile first = new MockMultipartFile("files", "a.txt", MediaType.TEXT_PLAIN_VALUE, CONTENT.getBytes());
+        MockMultipartFile second = new MockMultipartFile("files", "b.unsupported", MediaType.TEXT_PLAIN_VALUE, CONTENT.getBytes());
+
+        when(minioService.putObjects(any(), any())).thenReturn(List.of(
+                FileResponse.builder().filename("a.txt").contentType(CONTENT_TYPE).fileSize(12L).build(),
+                FileResponse.builder().filename("b.unsupported").fileSize(12L).error("Tipo de arquivo não suportado").build()));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/minio/uploads")
+                        .file(first)
+                        .file(second)
+                        .param("bucketName", BUCKET_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].error", is("Tipo de arquivo não suportado")));
+    }
+
+    @Test
+    void download_CompressedObject_PassesThroughWhenCodecIsAccepted() throws Exception {
+        byte[] deflated = deflate(CONTENT.getBytes());
+        stubCompressedObject(deflated);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/minio/download/{bucketName}/{objectName}", BUCKET_NAME, FILENAME)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                        .header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "none"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().bytes(deflated));
+    }
+
+    @Test
+    void download_CompressedObject_InflatesForOtherClients() throws Exception {
+        stubCompressedObject(deflate(CONTENT.getBytes()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/minio/download/{bucketName}/{objectName}", BUCKET_NAME, FILENAME)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+                .andExpect(content().string(CONTENT));
+    }
+
+    private void stubCompressedObject(byte[] deflated) {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn((long) deflated.length);
+        when(stat.contentType()).thenReturn(CONTENT_TYPE);
+        when(stat.etag()).thenReturn("etag");
+        when(stat.headers()).thenReturn(Headers.of(HttpHeaders.CONTENT_ENCODING, "deflate"));
+        when(stat.userMetadata()).thenReturn(Map.of("original-size", String.valueOf(CONTENT.length())));
+        when(minioService.statObject(BUCKET_NAME, FILENAME)).thenReturn(Optional.of(stat));
+        when(minioService.downloadObject(BUCKET_NAME, FILENAME, 0L, null))
+                .thenReturn(Optional.of(new ByteArrayInputStream(deflated)));
+    }
+
+    private static byte[] deflate(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(content);
+        }
+        return out.toByteArray();
+    }
+}
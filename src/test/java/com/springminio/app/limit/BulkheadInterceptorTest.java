@@ -0,0 +1,112 @@
+package com.springminio.app.limit;
+
+import com.springminio.app.controller.MinioController;
+import com.springminio.app.exception.ConcurrencyLimitException;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.service.MinioService;
+import com.springminio.app.util.FileTypeUtils;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.Part;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockPart;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.AbstractMockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The multipart resolver is not part of the MVC slice, it is brought in configured as the application configures it
+@WebMvcTest(MinioController.class)
+@ImportAutoConfiguration(MultipartAutoConfiguration.class)
+class BulkheadInterceptorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private MinioService minioService;
+
+    @MockitoBean
+    private FileTypeUtils fileTypeUtils;
+
+    @MockitoBean
+    private ConcurrencyLimits concurrencyLimits;
+
+    private final AtomicBoolean bodyRead = new AtomicBoolean();
+
+    @Test
+    void rejectedUploadNeverReadsItsBody() throws Exception {
+        when(concurrencyLimits.acquire(BulkheadType.UPLOAD)).thenThrow(new ConcurrencyLimitException(BulkheadType.UPLOAD, 4));
+
+        mockMvc.perform(upload())
+                .andExpect(status().isServiceUnavailable());
+        assertFalse(bodyRead.get());
+    }
+
+    @Test
+    void admittedUploadIsParsedAndReleasesItsPermit() throws Exception {
+        ConcurrencyLimits.Permit permit = mock(ConcurrencyLimits.Permit.class);
+        when(concurrencyLimits.acquire(BulkheadType.UPLOAD)).thenReturn(permit);
+        when(minioService.putObject(any(), any())).thenReturn(FileResponse.builder().filename("a.txt").build());
+
+        mockMvc.perform(upload())
+                .andExpect(status().isOk());
+        assertTrue(bodyRead.get());
+        verify(permit).release(anyBoolean(), anyLong());
+    }
+
+    // A raw multipart request, so the body goes through the multipart resolver as it would from the container
+    private UploadRequestBuilder upload() {
+        return new UploadRequestBuilder()
+                .uri("/minio/upload")
+                .param("bucketName", "bucket")
+                .contentType(MediaType.MULTIPART_FORM_DATA);
+    }
+
+    private class UploadRequestBuilder extends AbstractMockHttpServletRequestBuilder<UploadRequestBuilder> {
+
+        UploadRequestBuilder() {
+            super(HttpMethod.POST);
+        }
+
+        @Override
+        protected MockHttpServletRequest createServletRequest(ServletContext servletContext) {
+            MockHttpServletRequest request = new MockHttpServletRequest(servletContext) {
+                @Override
+                public Collection<Part> getParts() throws IOException, ServletException {
+                    bodyRead.set(true);
+                    return super.getParts();
+                }
+
+                @Override
+                public ServletInputStream getInputStream() {
+                    bodyRead.set(true);
+                    return super.getInputStream();
+                }
+            };
+            request.addPart(new MockPart("file", "a.txt", "conteúdo".getBytes()));
+            return request;
+        }
+    }
+}
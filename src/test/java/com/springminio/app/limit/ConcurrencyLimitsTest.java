@@ -0,0 +1,56 @@
+package com.springminio.app.limit;
+
+import com.springminio.app.config.MinioConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitsTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimits concurrencyLimits;
+
+    ConcurrencyLimitsTest() {
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.getLimits().getBulkheads().put(BulkheadType.UPLOAD, new MinioConfig.Limit(16, 1, 16));
+        concurrencyLimits = new ConcurrencyLimits(minioConfig, meterRegistry);
+    }
+
+    @Test
+    void samplesStorageTimePerMibRatherThanTheWholeExchange() {
+        runFullBulkhead(100, 10 * MILLIS, 1);
+        // Requests that never reached storage, however long they took, are not sampled
+        runFullBulkhead(50, 0, 1);
+        // Nor is a 50 MiB upload taking fifty times as long a sign of overload
+        runFullBulkhead(50, 500 * MILLIS, 50);
+        assertEquals(16, limit());
+
+        runFullBulkhead(50, 500 * MILLIS, 1);
+        assertTrue(limit() < 16, "limite : " + limit());
+    }
+
+    // Fill the bulkhead, so the latency is sampled, and release every permit after the given storage time
+    private void runFullBulkhead(int rounds, long storageNanos, long samples) {
+        for (int i = 0; i < rounds; i++) {
+            List<ConcurrencyLimits.Permit> permits = new ArrayList<>();
+            for (int p = 0; p < limit(); p++) {
+                permits.add(concurrencyLimits.acquire(BulkheadType.UPLOAD));
+            }
+            for (ConcurrencyLimits.Permit permit : permits) {
+                permit.record(storageNanos);
+                permit.release(true, samples);
+            }
+        }
+    }
+
+    private int limit() {
+        return (int) meterRegistry.get("minio.limit").tag("bulkhead", "upload").gauge().value();
+    }
+}
@@ -0,0 +1,42 @@
+package com.springminio.app.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void refusesRequestsOverTheLimit() {
+        GradientLimiter limiter = new GradientLimiter(2, 1, 10, 0.2, 1.5, 100);
+
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        limiter.release(MILLIS, 2, true);
+        assertTrue(limiter.tryAcquire() > 0);
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItClimbs() {
+        GradientLimiter limiter = new GradientLimiter(20, 2, 200, 0.2, 1.5, 100);
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire() > 0);
+            limiter.release(10 * MILLIS, limiter.getLimit(), true);
+        }
+        int grown = limiter.getLimit();
+        assertEquals(200, grown);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire() > 0);
+            limiter.release(100 * MILLIS, limiter.getLimit(), true);
+        }
+        assertTrue(limiter.getLimit() < grown / 2, "limite : " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,498 @@
+package com.springminio.app.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the subset of the S3 API the application uses: buckets, single and
+ * multipart PUT with ListParts and ListMultipartUploads, GET with ranges, HEAD, DELETE, multi-object delete and ListObjectsV2. Objects live
+ * in memory. Every request waits {@code latency} before it is answered, and request and response
+ * bodies are paced to {@code bytesPerSecond} per stream (0 for no limit), so the application can be
+ * measured against a storage with known speed. Signatures are not checked.
+ */
+public class S3Stub implements AutoCloseable {
+
+    private static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>", Pattern.DOTALL);
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+    private static final int CHUNK = 16 * 1024;
+
+    private final HttpServer server;
+    // Platform threads, so a pinned virtual thread in the application under test never starves the stub
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Duration latency;
+    private final long bytesPerSecond;
+
+    private final Map<String, NavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+    private final Map<String, PendingUpload> uploads = new ConcurrentHashMap<>();
+
+    private S3Stub(Duration latency, long bytesPerSecond) throws IOException {
+        this.latency = latency;
+        this.bytesPerSecond = bytesPerSecond;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static S3Stub start(Duration latency, long bytesPerSecond) throws IOException {
+        return new S3Stub(latency, bytesPerSecond);
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            String path = exchange.getRequestURI().getPath();
+            String[] parts = path.substring(1).split("/", 2);
+            String bucket = parts[0];
+            String key = parts.length > 1 ? parts[1] : "";
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+
+            if (bucket.isEmpty()) {
+                listBuckets(exchange);
+            } else if (key.isEmpty()) {
+                handleBucket(exchange, method, bucket, query);
+            } else {
+                handleObject(exchange, method, bucket, key, query);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            error(exchange, 500, "InternalError", e.toString());
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucket, Map<String, String> query)
+            throws IOException, InterruptedException {
+        NavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        switch (method) {
+            case "HEAD" -> empty(exchange, objects != null ? 200 : 404);
+            case "PUT" -> {
+                buckets.putIfAbsent(bucket, new ConcurrentSkipListMap<>());
+                empty(exchange, 200);
+            }
+            case "DELETE" -> {
+                buckets.remove(bucket);
+                empty(exchange, 204);
+            }
+            case "GET" -> {
+                if (objects == null) {
+                    error(exchange, 404, "NoSuchBucket", bucket);
+                } else if (query.containsKey("uploads")) {
+                    listUploads(exchange, bucket, query.getOrDefault("prefix", ""));
+                } else if (query.containsKey("location")) {
+                    xml(exchange, 200, "<LocationConstraint xmlns=\"" + NAMESPACE + "\"></LocationConstraint>");
+                } else {
+                    listObjects(exchange, bucket, objects, query);
+                }
+            }
+            case "POST" -> {
+                if (objects == null) {
+                    error(exchange, 404, "NoSuchBucket", bucket);
+                    return;
+                }
+                // Multi-object delete; only errors are reported, and there are none
+                Matcher keys = DELETE_KEY.matcher(new String(readBody(exchange), StandardCharsets.UTF_8));
+                while (keys.find()) {
+                    objects.remove(unescape(keys.group(1)));
+                }
+                xml(exchange, 200, "<DeleteResult xmlns=\"" + NAMESPACE + "\"></DeleteResult>");
+            }
+            default -> error(exchange, 405, "MethodNotAllowed", method);
+        }
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String bucket, String key, Map<String, String> query)
+            throws IOException, InterruptedException {
+        NavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        if (objects == null) {
+            error(exchange, 404, "NoSuchBucket", bucket);
+            return;
+        }
+        switch (method) {
+            case "PUT" -> {
+                byte[] content = readBody(exchange);
+                String uploadId = query.get("uploadId");
+                if (uploadId != null) {
+                    PendingUpload upload = uploads.get(uploadId);
+                    int partNumber = Integer.parseInt(query.get("partNumber"));
+                    upload.parts().put(partNumber, content);
+                    upload.partTimes().put(partNumber, Instant.now());
+                    exchange.getResponseHeaders().set("ETag", "\"" + md5(content) + "\"");
+                    empty(exchange, 200);
+                    return;
+                }
+                StoredObject object = store(objects, key, content, exchange);
+                exchange.getResponseHeaders().set("ETag", "\"" + object.etag() + "\"");
+                empty(exchange, 200);
+            }
+            case "POST" -> {
+                if (query.containsKey("uploads")) {
+                    String uploadId = UUID.randomUUID().toString();
+                    uploads.put(uploadId, new PendingUpload(bucket, key, Instant.now(), new ConcurrentHashMap<>(),
+                            new ConcurrentHashMap<>()));
+                    xml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + NAMESPACE + "\"><Bucket>" + bucket
+                            + "</Bucket><Key>" + escape(key) + "</Key><UploadId>" + uploadId
+                            + "</UploadId></InitiateMultipartUploadResult>");
+                    return;
+                }
+                completeUpload(exchange, objects, bucket, key, query.get("uploadId"));
+            }
+            case "DELETE" -> {
+                String uploadId = query.get("uploadId");
+                if (uploadId != null) {
+                    uploads.remove(uploadId);
+                } else {
+                    objects.remove(key);
+                }
+                empty(exchange, 204);
+            }
+            case "HEAD", "GET" -> {
+                if (method.equals("GET") && query.containsKey("uploadId")) {
+                    listParts(exchange, bucket, key, query.get("uploadId"));
+                    return;
+                }
+                StoredObject object = objects.get(key);
+                if (object == null) {
+                    error(exchange, 404, "NoSuchKey", key);
+                    return;
+                }
+                headers(exchange, object);
+                if (method.equals("HEAD")) {
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content().length));
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                sendObject(exchange, object);
+            }
+            default -> error(exchange, 405, "MethodNotAllowed", method);
+        }
+    }
+
+    private StoredObject store(NavigableMap<String, StoredObject> objects, String key, byte[] content,
+                               HttpExchange exchange) {
+        Map<String, String> metadata = new HashMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> {
+            String lower = name.toLowerCase();
+            if (lower.startsWith("x-amz-meta-") || lower.equals("content-encoding")) {
+                metadata.put(lower, values.get(0));
+            }
+        });
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        StoredObject object = new StoredObject(content, md5(content),
+                contentType != null ? contentType : "application/octet-stream", Instant.now(), metadata);
+        objects.put(key, object);
+        return object;
+    }
+
+    private void completeUpload(HttpExchange exchange, NavigableMap<String, StoredObject> objects, String bucket,
+                                String key, String uploadId) throws IOException, InterruptedException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+        PendingUpload upload = uploads.remove(uploadId);
+        if (upload == null) {
+            error(exchange, 404, "NoSuchUpload", uploadId);
+            return;
+        }
+        Map<Integer, byte[]> parts = upload.parts();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        Matcher numbers = PART_NUMBER.matcher(body);
+        int count = 0;
+        while (numbers.find()) {
+            content.writeBytes(parts.get(Integer.parseInt(numbers.group(1))));
+            count++;
+        }
+        StoredObject object = store(objects, key, content.toByteArray(), exchange);
+        xml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + NAMESPACE + "\"><Location>/" + bucket + "/"
+                + escape(key) + "</Location><Bucket>" + bucket + "</Bucket><Key>" + escape(key) + "</Key><ETag>\""
+                + object.etag() + "-" + count + "\"</ETag></CompleteMultipartUploadResult>");
+    }
+
+    // All parts in one page, they are few in tests
+    private void listParts(HttpExchange exchange, String bucket, String key, String uploadId)
+            throws IOException, InterruptedException {
+        PendingUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            error(exchange, 404, "NoSuchUpload", uploadId);
+            return;
+        }
+        Map<Integer, byte[]> parts = upload.parts();
+        StringBuilder xml = new StringBuilder("<ListPartsResult xmlns=\"" + NAMESPACE + "\"><Bucket>").append(bucket)
+                .append("</Bucket><Key>").append(escape(key)).append("</Key><UploadId>").append(uploadId)
+                .append("</UploadId><Initiator><ID>stub</ID><DisplayName>stub</DisplayName></Initiator>")
+                .append("<Owner><ID>stub</ID><DisplayName>stub</DisplayName></Owner><StorageClass>STANDARD</StorageClass>")
+                .append("<PartNumberMarker>0</PartNumberMarker><NextPartNumberMarker>").append(parts.size())
+                .append("</NextPartNumberMarker><MaxParts>1000</MaxParts><IsTruncated>false</IsTruncated>");
+        new TreeMap<>(parts).forEach((number, content) -> xml.append("<Part><PartNumber>").append(number)
+                .append("</PartNumber><LastModified>").append(ISO_DATE.format(upload.partTimes().get(number)))
+                .append("</LastModified><ETag>\"").append(md5(content)).append("\"</ETag><Size>")
+                .append(content.length).append("</Size></Part>"));
+        xml(exchange, 200, xml.append("</ListPartsResult>").toString());
+    }
+
+    // Uploads of the bucket in one page, like the parts
+    private void listUploads(HttpExchange exchange, String bucket, String prefix) throws IOException, InterruptedException {
+        StringBuilder xml = new StringBuilder("<ListMultipartUploadsResult xmlns=\"" + NAMESPACE + "\"><Bucket>")
+                .append(bucket).append("</Bucket><KeyMarker></KeyMarker><UploadIdMarker></UploadIdMarker>")
+                .append("<NextKeyMarker></NextKeyMarker><NextUploadIdMarker></NextUploadIdMarker>")
+                .append("<MaxUploads>1000</MaxUploads><IsTruncated>false</IsTruncated>");
+        uploads.forEach((uploadId, upload) -> {
+            if (upload.bucket().equals(bucket) && upload.key().startsWith(prefix)) {
+                xml.append("<Upload><Key>").append(escape(upload.key())).append("</Key><UploadId>").append(uploadId)
+                        .append("</UploadId><Initiator><ID>stub</ID><DisplayName>stub</DisplayName></Initiator>")
+                        .append("<Owner><ID>stub</ID><DisplayName>stub</DisplayName></Owner>")
+                        .append("<StorageClass>STANDARD</StorageClass><Initiated>")
+                        .append(ISO_DATE.format(upload.initiated())).append("</Initiated></Upload>");
+            }
+        });
+        xml(exchange, 200, xml.append("</ListMultipartUploadsResult>").toString());
+    }
+
+    private void sendObject(HttpExchange exchange, StoredObject object) throws IOException, InterruptedException {
+        byte[] content = object.content();
+        int start = 0;
+        int end = content.length - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range != null ? RANGE.matcher(range) : null;
+        if (matcher != null && matcher.matches()) {
+            start = Integer.parseInt(matcher.group(1));
+            if (!matcher.group(2).isEmpty()) {
+                end = Math.min(end, Integer.parseInt(matcher.group(2)));
+            }
+            if (start > end) {
+                error(exchange, 416, "InvalidRange", range);
+                return;
+            }
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        }
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            write(out, content, start, length);
+        }
+    }
+
+    private void listBuckets(HttpExchange exchange) throws IOException, InterruptedException {
+        StringBuilder xml = new StringBuilder("<ListAllMyBucketsResult xmlns=\"" + NAMESPACE + "\">")
+                .append("<Owner><ID>stub</ID><DisplayName>stub</DisplayName></Owner><Buckets>");
+        for (String bucket : new TreeMap<>(buckets).keySet()) {
+            xml.append("<Bucket><Name>").append(bucket).append("</Name><CreationDate>")
+                    .append(ISO_DATE.format(Instant.EPOCH)).append("</CreationDate></Bucket>");
+        }
+        xml(exchange, 200, xml.append("</Buckets></ListAllMyBucketsResult>").toString());
+    }
+
+    // ListObjectsV2, resumed after start-after or the continuation token, which is the last key returned
+    private void listObjects(HttpExchange exchange, String bucket, NavigableMap<String, StoredObject> objects,
+                             Map<String, String> query) throws IOException, InterruptedException {
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.getOrDefault("delimiter", "");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        String after = query.getOrDefault("continuation-token", query.getOrDefault("start-after", ""));
+
+        SortedMap<String, StoredObject> candidates = prefix.isEmpty() ? objects : objects.subMap(prefix, prefix + Character.MAX_VALUE);
+        StringBuilder contents = new StringBuilder();
+        TreeMap<String, Boolean> commonPrefixes = new TreeMap<>();
+        int count = 0;
+        String last = null;
+        boolean truncated = false;
+        for (Map.Entry<String, StoredObject> entry : candidates.entrySet()) {
+            String key = entry.getKey();
+            if (key.compareTo(after) <= 0) {
+                continue;
+            }
+            // Keys under a common prefix already returned are passed over without counting
+            int cut = delimiter.isEmpty() ? -1 : key.indexOf(delimiter, prefix.length());
+            String common = cut >= 0 ? key.substring(0, cut + delimiter.length()) : null;
+            if (common != null && commonPrefixes.containsKey(common)) {
+                last = key;
+                continue;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (common != null) {
+                commonPrefixes.put(common, Boolean.TRUE);
+                count++;
+                last = key;
+                continue;
+            }
+            StoredObject object = entry.getValue();
+            contents.append("<Contents><Key>").append(escape(key)).append("</Key><LastModified>")
+                    .append(ISO_DATE.format(object.lastModified())).append("</LastModified><ETag>\"")
+                    .append(object.etag()).append("\"</ETag><Size>").append(object.content().length)
+                    .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+            count++;
+            last = key;
+        }
+
+        StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"" + NAMESPACE + "\">")
+                .append("<Name>").append(bucket).append("</Name><Prefix>").append(escape(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(count).append("</KeyCount><MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(escape(last)).append("</NextContinuationToken>");
+        }
+        xml.append(contents);
+        commonPrefixes.keySet().forEach(common ->
+                xml.append("<CommonPrefixes><Prefix>").append(escape(common)).append("</Prefix></CommonPrefixes>"));
+        xml(exchange, 200, xml.append("</ListBucketResult>").toString());
+    }
+
+    private static void headers(HttpExchange exchange, StoredObject object) {
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag() + "\"");
+        exchange.getResponseHeaders().set("Content-Type", object.contentType());
+        exchange.getResponseHeaders().set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atZone(ZoneOffset.UTC)));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        object.metadata().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+    }
+
+    private void xml(HttpExchange exchange, int status, String body) throws IOException, InterruptedException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            write(out, bytes, 0, bytes.length);
+        }
+    }
+
+    private void error(HttpExchange exchange, int status, String code, String resource) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = ("<Error><Code>" + code + "</Code><Message>" + code + "</Message><Resource>" + escape(resource)
+                + "</Resource><RequestId>stub</RequestId><HostId>stub</HostId></Error>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void empty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[CHUNK];
+        long start = System.nanoTime();
+        long total = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                total += read;
+                pace(start, total);
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private void write(OutputStream out, byte[] content, int offset, int length) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int written = 0; written < length; ) {
+            int chunk = Math.min(CHUNK, length - written);
+            out.write(content, offset + written, chunk);
+            written += chunk;
+            pace(start, written);
+        }
+    }
+
+    // Sleep until the bytes moved so far match the configured bandwidth
+    private void pace(long startNanos, long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long due = startNanos + bytes * 1_000_000_000L / bytesPerSecond;
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, StandardCharsets.UTF_8);
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+    }
+
+    private record PendingUpload(String bucket, String key, Instant initiated, Map<Integer, byte[]> parts,
+                                 Map<Integer, Instant> partTimes) {
+    }
+
+    private record StoredObject(byte[] content, String etag, String contentType, Instant lastModified,
+                                Map<String, String> metadata) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.springminio.app.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load suite: the application on a random port against an in-process S3 stub, driven over
+ * HTTP through uploads, downloads, listings and deletes, so real bytes flow through the controller,
+ * service, MinioUtil and the MinIO client. Each phase reports requests per second, MB/s and the
+ * p50/p99/p999 latency, and the requests the concurrency limits refused with 503 apart from errors.
+ * Subclasses run it with platform and with virtual threads.
+ *
+ * <p>Tagged {@code load} and excluded from the default build: {@code mvn -Pload test}. Tunable with
+ * {@code -Dload.concurrency}, {@code -Dload.requests}, {@code -Dload.object-size} (bytes),
+ * {@code -Dload.latency-ms} and {@code -Dload.bandwidth} (bytes per second per stream, 0 for no limit).
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class StorageLoadTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageLoadTest.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 400);
+    private static final int OBJECT_SIZE = Integer.getInteger("load.object-size", 256 * 1024);
+    private static final S3Stub STUB = startStub();
+
+    private static final String BOUNDARY = "load-test-boundary";
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+
+    @DynamicPropertySource
+    static void minio(DynamicPropertyRegistry registry) {
+        registry.add("minio.endpoint", () -> "http://127.0.0.1:" + STUB.port());
+        registry.add("minio.port", STUB::port);
+    }
+
+    @Test
+    void uploadDownloadListDelete() {
+        String bucket = "load-" + (virtualThreads ? "virtual" : "platform");
+        byte[] content = content(OBJECT_SIZE);
+        String[] objectNames = new String[REQUESTS];
+        LOGGER.info("StorageLoadTest | {} | concorrência : {}, objetos de {} bytes, latência : {} ms, banda : {} B/s",
+                virtualThreads ? "virtual threads" : "platform threads", CONCURRENCY, OBJECT_SIZE,
+                Long.getLong("load.latency-ms", 2), Long.getLong("load.bandwidth", 0));
+
+        Result uploads = run("upload", REQUESTS, i -> {
+            HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/minio/upload?bucketName=" + bucket))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(multipart("file", "load-" + i + ".pdf", content))));
+            objectNames[i] = json(response).path("filename").asText();
+            return (long) content.length;
+        });
+
+        // Uploads shed by the concurrency limits left no object behind
+        String[] stored = Arrays.stream(objectNames).filter(Objects::nonNull).toArray(String[]::new);
+
+        Result downloads = run("download", REQUESTS, i -> {
+            HttpResponse<byte[]> response = send(HttpRequest.newBuilder(
+                    uri("/minio/download/" + bucket + "/" + stored[i % stored.length])).GET());
+            assertEquals(content.length, response.body().length);
+            return (long) response.body().length;
+        });
+
+        Result listings = run("list", REQUESTS, i -> {
+            HttpResponse<byte[]> response = send(HttpRequest.newBuilder(
+                    uri("/minio/list/" + bucket + "?maxKeys=100")).GET());
+            return (long) response.body().length;
+        });
+
+        Result deletes = run("delete", stored.length, i -> {
+            send(HttpRequest.newBuilder(uri("/minio/removeObject/" + bucket + "/" + stored[i])).DELETE());
+            return 0L;
+        });
+
+        for (Result result : List.of(uploads, downloads, listings, deletes)) {
+            LOGGER.info("StorageLoadTest | {} | {}", virtualThreads ? "virtual threads" : "platform threads", result);
+            assertEquals(0, result.errors(), result.phase() + " com erros");
+        }
+    }
+
+    // Run the requests on CONCURRENCY platform client threads, kept off the carriers of the server under
+    // test; each request returns the payload bytes it moved
+    private Result run(String phase, int requests, IntFunction<Long> request) {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < CONCURRENCY; w++) {
+            workers.add(Thread.ofPlatform().daemon().start(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        bytes.addAndGet(request.apply(i));
+                    } catch (RejectedException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException | AssertionError e) {
+                        errors.incrementAndGet();
+                        LOGGER.warn("StorageLoadTest | {} | requisição {} falhou : {}", phase, i, e.getMessage());
+                    }
+                    latencies[i] = System.nanoTime() - requestStart;
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return new Result(phase, requests, errors.get(), rejected.get(), bytes.get(), System.nanoTime() - start,
+                latencies);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) {
+        try {
+            HttpResponse<byte[]> response = client.send(request.timeout(Duration.ofMinutes(1)).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 503) {
+                throw new RejectedException();
+            }
+            if (response.statusCode() >= 400) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " : "
+                        + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return response;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode json(HttpResponse<byte[]> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static S3Stub startStub() {
+        try {
+            return S3Stub.start(Duration.ofMillis(Long.getLong("load.latency-ms", 2)), Long.getLong("load.bandwidth", 0));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A PDF header followed by random bytes, so the upload passes type detection and does not compress
+    private static byte[] content(int size) {
+        byte[] content = new byte[Math.max(size, 8)];
+        ThreadLocalRandom.current().nextBytes(content);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, content, 0, 8);
+        return content;
+    }
+
+    private static byte[] multipart(String field, String filename, byte[] content) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + field + "\"; filename=\""
+                + filename + "\"\r\nContent-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    // A request shed by the concurrency limits of the application, expected under overload
+    private static class RejectedException extends RuntimeException {
+    }
+
+    record Result(String phase, int requests, int errors, int rejected, long bytes, long elapsedNanos,
+                  long[] latencies) {
+
+        double requestsPerSecond() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        double megabytesPerSecond() {
+            return bytes / 1e6 / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%-8s %6d req, %3d erros, %4d recusadas, %9.1f req/s, %8.1f MB/s, p50 %7.2f ms, p99 %7.2f ms, p999 %7.2f ms",
+                    phase, requests, errors, rejected, requestsPerSecond(), megabytesPerSecond(),
+                    percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999));
+        }
+    }
+}
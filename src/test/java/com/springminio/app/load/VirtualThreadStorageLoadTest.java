@@ -0,0 +1,7 @@
+package com.springminio.app.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadStorageLoadTest extends StorageLoadTest {
+}
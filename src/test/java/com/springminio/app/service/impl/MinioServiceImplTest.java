@@ -0,0 +1,330 @@
+package com.springminio.app.service.impl;
+
+import com.springminio.app.cache.BucketRegistry;
+import com.springminio.app.cache.ContentIndex;
+import com.springminio.app.cache.ImageVariantIndex;
+import com.springminio.app.cache.ObjectDiskCache;
+import com.springminio.app.cache.PresignedUrlCache;
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.load.S3Stub;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.util.CompressionUtil;
+import com.springminio.app.util.HedgedReadUtil;
+import com.springminio.app.util.ImageUtil;
+import com.springminio.app.util.MinioMultipartClient;
+import com.springminio.app.util.MinioUtil;
+import com.springminio.app.util.MultipartUploadUtil;
+import com.springminio.app.util.UploadUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MinioServiceImplTest {
+
+    private static final String BUCKET = "dedup";
+
+    private final S3Stub stub = S3Stub.start(Duration.ZERO, 0);
+    private final MinioConfig minioConfig = new MinioConfig();
+    // As small as the async pool can get, so tasks waiting on that same pool would stall it
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final ImageUtil imageUtil = mock(ImageUtil.class);
+    private final MinioUtil minioUtil;
+    private final PresignedUrlCache presignedUrlCache;
+    private final MinioServiceImpl service;
+    private final AsyncMinioServiceImpl asyncService;
+
+    MinioServiceImplTest() throws Exception {
+        String endpoint = "http://127.0.0.1:" + stub.port();
+        MinioClient client = MinioClient.builder().endpoint(endpoint).credentials("minioadmin", "minioadmin")
+                .region("us-east-1").build();
+        MinioAsyncClient asyncClient = MinioAsyncClient.builder().endpoint(endpoint)
+                .credentials("minioadmin", "minioadmin").region("us-east-1").build();
+        minioConfig.getDedup().setEnabled(true);
+
+        BucketRegistry bucketRegistry = new BucketRegistry(client);
+        presignedUrlCache = new PresignedUrlCache(minioConfig);
+        MultipartUploadUtil multipartUploadUtil = new MultipartUploadUtil(new MinioMultipartClient(asyncClient), minioConfig);
+        minioUtil = new MinioUtil(client, minioConfig, multipartUploadUtil, presignedUrlCache, bucketRegistry, executor,
+                new CompressionUtil(minioConfig), new HedgedReadUtil(null, minioConfig, new SimpleMeterRegistry()));
+        ContentIndex contentIndex = new ContentIndex(minioConfig, minioUtil);
+        ObjectDiskCache objectDiskCache = new ObjectDiskCache(minioConfig);
+        ImageVariantIndex imageVariantIndex = new ImageVariantIndex(minioConfig, minioUtil);
+
+        UploadUtil uploadUtil = new UploadUtil(minioUtil, contentIndex);
+
+        service = new MinioServiceImpl(minioUtil, minioConfig, objectDiskCache, presignedUrlCache, contentIndex,
+                executor, imageUtil, imageVariantIndex, uploadUtil);
+        asyncService = new AsyncMinioServiceImpl(asyncClient, executor, minioConfig, presignedUrlCache, bucketRegistry,
+                contentIndex, objectDiskCache, imageVariantIndex, uploadUtil);
+        minioUtil.makeBucket(BUCKET);
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    void deduplicatedContentIsRemovedWithItsLastReference() throws Exception {
+        byte[] content = content(4096);
+
+        FileResponse first = service.putObject(file("a.pdf", content), BUCKET);
+        FileResponse second = service.putObject(file("b.pdf", content), BUCKET);
+        assertEquals(false, first.getDeduplicated());
+        assertEquals(true, second.getDeduplicated());
+        assertEquals(first.getFilename(), second.getFilename());
+
+        assertTrue(service.removeObject(BUCKET, first.getFilename()));
+        assertTrue(minioUtil.objectExists(BUCKET, first.getFilename()));
+        assertTrue(service.removeObject(BUCKET, second.getFilename()));
+        assertFalse(minioUtil.objectExists(BUCKET, first.getFilename()));
+
+        // Stored again after the last delete, instead of being reported as already there
+        FileResponse third = service.putObject(file("c.pdf", content), BUCKET);
+        assertEquals(false, third.getDeduplicated());
+        assertArrayEquals(content, read(third.getFilename()));
+    }
+
+    @Test
+    void listDeletesAndAsyncDeletesReleaseOneReferenceEach() throws Exception {
+        byte[] content = content(4096);
+        FileResponse first = service.putObject(file("a.pdf", content), BUCKET);
+        service.putObject(file("b.pdf", content), BUCKET);
+        FileResponse single = service.putObject(file("other.pdf", content(2048)), BUCKET);
+
+        assertEquals(2, service.removeListObject(BUCKET, List.of(first.getFilename(), single.getFilename()))
+                .getDeletedCount());
+        assertTrue(minioUtil.objectExists(BUCKET, first.getFilename()));
+        assertFalse(minioUtil.objectExists(BUCKET, single.getFilename()));
+
+        assertTrue(asyncService.removeObject(BUCKET, first.getFilename()).join());
+        assertFalse(minioUtil.objectExists(BUCKET, first.getFilename()));
+        assertEquals(false, service.putObject(file("d.pdf", content), BUCKET).getDeduplicated());
+    }
+
+    @Test
+    void asyncUploadsAreStoredLikeBlockingOnes() throws Exception {
+        minioConfig.getCompression().setEnabled(true);
+        byte[] content = "linha de texto repetida\n".repeat(400).getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile text = new MockMultipartFile("file", "a.txt", "text/plain", content);
+
+        FileResponse first = service.putObject(text, BUCKET);
+        FileResponse second = asyncService.putObject(text, BUCKET).join();
+        assertEquals(true, second.getDeduplicated());
+        assertEquals(first.getFilename(), second.getFilename());
+
+        FileResponse other = asyncService.putObject(file("b.pdf", content(4096)), BUCKET).join();
+        assertEquals(false, other.getDeduplicated());
+        assertTrue(minioUtil.objectExists(BUCKET, other.getFilename()));
+        assertTrue(minioUtil.statObject(BUCKET, first.getFilename()).orElseThrow().size() < content.length);
+    }
+
+    @Test
+    void compressedContentIsFoundAgainAfterARestart() throws Exception {
+        minioConfig.getCompression().setEnabled(true);
+        byte[] content = "linha de texto repetida\n".repeat(400).getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile text = new MockMultipartFile("file", "a.txt", "text/plain", content);
+
+        FileResponse first = service.putObject(text, BUCKET);
+        assertTrue(minioUtil.statObject(BUCKET, first.getFilename()).orElseThrow().size() < content.length);
+
+        // A new index knows nothing, so the stored object is matched on its recorded original size
+        ContentIndex restartedIndex = new ContentIndex(minioConfig, minioUtil);
+        MinioServiceImpl restarted = new MinioServiceImpl(minioUtil, minioConfig, new ObjectDiskCache(minioConfig),
+                presignedUrlCache, restartedIndex, executor, imageUtil, new ImageVariantIndex(minioConfig, minioUtil),
+                new UploadUtil(minioUtil, restartedIndex));
+        FileResponse second = restarted.putObject(text, BUCKET);
+        assertEquals(true, second.getDeduplicated());
+        assertEquals(first.getFilename(), second.getFilename());
+    }
+
+    @Test
+    void imageVariantsAreRoundedUpAndKeptInTheirOwnBucket() throws Exception {
+        when(imageUtil.resize(any(), anyInt(), anyString())).thenReturn(new byte[16]);
+        String etag = upload("photo.png");
+
+        assertEquals(BUCKET + "/photo.png/" + etag + "/w256.jpg", service.getImageVariant(BUCKET, "photo.png", 200, "jpg"));
+        assertEquals(BUCKET + "/photo.png/" + etag + "/w2048.png", service.getImageVariant(BUCKET, "photo.png", 5000, "png"));
+        verify(imageUtil).resize(any(), eq(256), eq("jpg"));
+        verify(imageUtil).resize(any(), eq(2048), eq("png"));
+
+        assertTrue(minioUtil.objectExists(minioConfig.getImage().getBucket(), BUCKET + "/photo.png/" + etag + "/w256.jpg"));
+        assertEquals(List.of("photo.png"), service.listObjectNames(BUCKET));
+    }
+
+    @Test
+    void concurrentRequestsGenerateAVariantOnce() throws Exception {
+        when(imageUtil.resize(any(), anyInt(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return new byte[16];
+        });
+        upload("photo.png");
+
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<String>> requests = IntStream.range(0, 6)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return service.getImageVariant(BUCKET, "photo.png", 100, "jpg");
+                }, callers))
+                .toList();
+        start.countDown();
+
+        assertEquals(1, requests.stream().map(CompletableFuture::join).distinct().count());
+        verify(imageUtil, times(1)).resize(any(), anyInt(), anyString());
+        callers.shutdownNow();
+    }
+
+    @Test
+    void imageVariantsAreRemovedWithTheirSource() throws Exception {
+        when(imageUtil.resize(any(), anyInt(), anyString())).thenReturn(new byte[16]);
+        String variantBucket = minioConfig.getImage().getBucket();
+        upload("a.png");
+        upload("b.png");
+        upload("c.png");
+        String a = service.getImageVariant(BUCKET, "a.png", 64, "jpg");
+        String b = service.getImageVariant(BUCKET, "b.png", 64, "jpg");
+        String c = service.getImageVariant(BUCKET, "c.png", 64, "jpg");
+
+        assertTrue(service.removeObject(BUCKET, "a.png"));
+        assertEquals(1, service.removeListObject(BUCKET, List.of("b.png")).getDeletedCount());
+        assertTrue(asyncService.removeObject(BUCKET, "c.png").join());
+        assertFalse(minioUtil.objectExists(variantBucket, a));
+        assertFalse(minioUtil.objectExists(variantBucket, b));
+        assertFalse(minioUtil.objectExists(variantBucket, c));
+
+        // The same bytes stored again have the same ETag, their variant is generated again rather than remembered
+        upload("a.png");
+        assertEquals(a, service.getImageVariant(BUCKET, "a.png", 64, "jpg"));
+        assertTrue(minioUtil.objectExists(variantBucket, a));
+        verify(imageUtil, times(4)).resize(any(), anyInt(), anyString());
+    }
+
+    @Test
+    void concurrentBulkDeletesDoNotExhaustASmallPool() throws Exception {
+        when(imageUtil.resize(any(), anyInt(), anyString())).thenReturn(new byte[16]);
+        minioConfig.getDelete().setConcurrency(4);
+        List<String> variants = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            upload(i + ".png");
+            variants.add(service.getImageVariant(BUCKET, i + ".png", 64, "jpg"));
+        }
+
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        List<CompletableFuture<?>> deletes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<String> names = List.of(i + ".png", (i + 4) + ".png");
+            deletes.add(CompletableFuture.supplyAsync(() -> service.removeListObject(BUCKET, names), callers));
+        }
+        for (int i = 8; i < 12; i++) {
+            deletes.add(asyncService.removeObject(BUCKET, i + ".png"));
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new)).join());
+        callers.shutdownNow();
+        assertEquals(List.of(), service.listObjectNames(BUCKET));
+        for (String variant : variants) {
+            assertFalse(minioUtil.objectExists(minioConfig.getImage().getBucket(), variant));
+        }
+    }
+
+    @Test
+    void zipDownloadsOpenPrefetchObjectsAheadOfTheOneBeingWritten() throws Exception {
+        minioConfig.getZip().setPrefetch(2);
+        for (int i = 0; i < 6; i++) {
+            upload(i + ".png");
+        }
+        AtomicInteger opened = new AtomicInteger();
+        ExecutorService counting = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                opened.incrementAndGet();
+                super.execute(command);
+            }
+        };
+        ContentIndex zipIndex = new ContentIndex(minioConfig, minioUtil);
+        MinioServiceImpl zipService = new MinioServiceImpl(minioUtil, minioConfig, new ObjectDiskCache(minioConfig),
+                presignedUrlCache, zipIndex, counting, imageUtil, new ImageVariantIndex(minioConfig, minioUtil),
+                new UploadUtil(minioUtil, zipIndex));
+
+        // The header of the first entry is written once that object and the two after it have been opened
+        AtomicInteger openedAtFirstWrite = new AtomicInteger(-1);
+        OutputStream archive = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                openedAtFirstWrite.compareAndSet(-1, opened.get());
+                super.write(bytes, offset, length);
+            }
+        };
+        zipService.writeZip(BUCKET, IntStream.range(0, 6).mapToObj(i -> i + ".png"), archive);
+        counting.shutdown();
+
+        assertEquals(3, openedAtFirstWrite.get());
+        assertEquals(6, opened.get());
+    }
+
+    private String upload(String objectName) throws Exception {
+        minioUtil.uploadObject(BUCKET, new ByteArrayInputStream(new byte[32]), 32, objectName, "image/png");
+        return minioUtil.statObject(BUCKET, objectName).orElseThrow().etag();
+    }
+
+    private byte[] read(String objectName) throws Exception {
+        try (InputStream inputStream = minioUtil.getObjectContent(BUCKET, objectName).orElseThrow()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static MockMultipartFile file(String name, byte[] content) {
+        return new MockMultipartFile("file", name, "application/pdf", content);
+    }
+
+    // A PDF header followed by random bytes, so the upload passes type detection
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, content, 0, 8);
+        return content;
+    }
+}
@@ -0,0 +1,163 @@
+package com.springminio.app.service.impl;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import com.springminio.app.load.S3Stub;
+import com.springminio.app.payload.FileResponse;
+import com.springminio.app.payload.UploadSession;
+import com.springminio.app.util.MinioMultipartClient;
+import com.springminio.app.util.MinioUtil;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Upload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class UploadSessionServiceImplTest {
+
+    private static final int CHUNK = 5 * 1024 * 1024;
+    private static final String BUCKET = "resumable";
+
+    private final S3Stub stub = S3Stub.start(Duration.ZERO, 0);
+    private final MinioAsyncClient client = MinioAsyncClient.builder()
+            .endpoint("http://127.0.0.1:" + stub.port())
+            .credentials("minioadmin", "minioadmin")
+            .region("us-east-1")
+            .build();
+    private final MinioConfig minioConfig = new MinioConfig();
+    private final MinioMultipartClient multipartClient = spy(new MinioMultipartClient(client));
+    private final MinioUtil minioUtil = mock(MinioUtil.class);
+    private final UploadSessionServiceImpl service;
+
+    UploadSessionServiceImplTest() throws Exception {
+        client.makeBucket(MakeBucketArgs.builder().bucket(BUCKET).build()).join();
+        when(minioUtil.bucketExists(BUCKET)).thenReturn(true);
+        when(minioUtil.listBucketNames()).thenReturn(List.of(BUCKET));
+        service = newService();
+    }
+
+    @AfterEach
+    void stop() {
+        stub.close();
+    }
+
+    @Test
+    void chunksSentOutOfOrderAreResumedAndAssembled() throws Exception {
+        byte[] content = content(2 * CHUNK + 100);
+        UploadSession session = service.create(BUCKET, "big.pdf", content.length, (long) CHUNK);
+        assertEquals(3, session.getTotalChunks());
+
+        service.putChunk(session.getSessionId(), 3, chunk(content, 3));
+        service.putChunk(session.getSessionId(), 1, chunk(content, 1));
+        assertEquals(List.of(1, 3), service.status(session.getSessionId()).getCompletedChunks());
+        assertThrows(FileResponseException.class, () -> service.complete(session.getSessionId()));
+
+        service.putChunk(session.getSessionId(), 2, chunk(content, 2));
+        FileResponse response = service.complete(session.getSessionId());
+
+        assertEquals(session.getFilename(), response.getFilename());
+        try (GetObjectResponse stored = client.getObject(
+                GetObjectArgs.builder().bucket(BUCKET).object(response.getFilename()).build()).join()) {
+            assertArrayEquals(content, stored.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsWrongSizedChunksAndAbortsExpiredSessions() {
+        byte[] content = content(CHUNK + 10);
+        UploadSession session = service.create(BUCKET, "big.pdf", content.length, (long) CHUNK);
+
+        assertThrows(FileResponseException.class, () ->
+                service.putChunk(session.getSessionId(), 2, new ByteArrayInputStream(new byte[11])));
+
+        minioConfig.getResumable().setExpiry(Duration.ZERO);
+        service.putChunk(session.getSessionId(), 1, chunk(content, 1));
+        service.abortExpired();
+
+        assertThrows(FileResponseException.class, () -> service.status(session.getSessionId()));
+    }
+
+    @Test
+    void failedCompletionKeepsTheSessionForARetry() {
+        byte[] content = content(CHUNK);
+        UploadSession session = service.create(BUCKET, "big.pdf", content.length, (long) CHUNK);
+        service.putChunk(session.getSessionId(), 1, chunk(content, 1));
+
+        doReturn(CompletableFuture.failedFuture(new IOException("conexão perdida")))
+                .doCallRealMethod()
+                .when(multipartClient).complete(anyString(), anyString(), anyString(), any());
+        assertThrows(CompletionException.class, () -> service.complete(session.getSessionId()));
+
+        assertEquals(List.of(1), service.status(session.getSessionId()).getCompletedChunks());
+        assertEquals(session.getFilename(), service.complete(session.getSessionId()).getFilename());
+    }
+
+    @Test
+    void onlyIdleUploadsOfSessionsAreAbortedAfterARestart() throws Exception {
+        minioConfig.getResumable().setExpiry(Duration.ofMillis(500));
+        byte[] content = content(CHUNK);
+        UploadSession lost = service.create(BUCKET, "lost.pdf", CHUNK, (long) CHUNK);
+        UploadSession active = service.create(BUCKET, "active.pdf", CHUNK, (long) CHUNK);
+        // Started by another client of the bucket, outside the session prefix
+        String foreign = "other/foreign.pdf";
+        multipartClient.initiate(BUCKET, foreign, "application/pdf").join();
+        Thread.sleep(600);
+        // Started before the cutoff, but it still receives parts
+        service.putChunk(active.getSessionId(), 1, chunk(content, 1));
+
+        // A new instance no longer knows the sessions, only MinIO still holds their uploads
+        UploadSessionServiceImpl restarted = newService();
+        UploadSession open = restarted.create(BUCKET, "open.pdf", CHUNK, (long) CHUNK);
+        restarted.abortAbandoned();
+
+        Set<String> remaining = multipartClient.listUploads(BUCKET).join().stream()
+                .map(Upload::objectName)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(active.getFilename(), foreign, open.getFilename()), remaining);
+        assertTrue(lost.getFilename().startsWith(minioConfig.getResumable().getPrefix()));
+    }
+
+    private UploadSessionServiceImpl newService() {
+        UploadSessionServiceImpl uploadSessionService = new UploadSessionServiceImpl(multipartClient, minioUtil, minioConfig);
+        uploadSessionService.init();
+        return uploadSessionService;
+    }
+
+    private static ByteArrayInputStream chunk(byte[] content, int chunkNumber) {
+        int from = (chunkNumber - 1) * CHUNK;
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, from, Math.min(content.length, from + CHUNK)));
+    }
+
+    // A PDF header followed by random bytes, so the first chunk passes type detection
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, content, 0, 8);
+        return content;
+    }
+}
@@ -0,0 +1,82 @@
+package com.springminio.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class FileTypeUtilsTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+
+    @Test
+    void detect_ReturnsTypeAndStreamFromFirstByte() throws IOException {
+        byte[] content = Arrays.copyOf(PNG, 4096);
+
+        FileTypeUtils.TypedStream detected = FileTypeUtils.detect(new ByteArrayInputStream(content), "image.png");
+
+        assertEquals("image/png", detected.contentType());
+        try (InputStream inputStream = detected.inputStream()) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void getFileType_MatchesSignaturesAtAnOffset() {
+        assertEquals("audio/wav", type(riff("WAVE"), "sound.wav"));
+        assertEquals("image/webp", type(riff("WEBP"), "image.webp"));
+        assertEquals("video/quicktime", type(ftyp("qt  "), "clip.mov"));
+        assertEquals("video/mp4", type(ftyp("isom"), "clip.mp4"));
+    }
+
+    @Test
+    void getFileType_RefinesContainersByExtension() {
+        byte[] zip = {'P', 'K', 0x03, 0x04, 0x14, 0x00};
+
+        assertEquals("application/vnd.openxmlformats-officedocument.wordprocessingml.document", type(zip, "report.DOCX"));
+        assertEquals("application/zip", type(zip, "archive.zip"));
+    }
+
+    @Test
+    void getFileType_FallsBackToTextOrRejects() {
+        assertEquals("text/plain", type("Test Content".getBytes(StandardCharsets.UTF_8), "test.txt"));
+        assertEquals("text/csv", type("a;b\n1;2\n".getBytes(StandardCharsets.UTF_8), "data.csv"));
+        assertNull(type(new byte[]{0x00, 0x01, 0x02, 0x03}, "test.unsupported"));
+        assertNull(type(new byte[0], "empty.txt"));
+    }
+
+    @Test
+    void getFileType_OnlyTakesValidUtf8ForText() {
+        byte[] accented = "Relatório do café".getBytes(StandardCharsets.UTF_8);
+        assertEquals("text/plain", type(accented, "notes.txt"));
+        // The header may end in the middle of a character
+        assertEquals("text/plain", type(Arrays.copyOf(accented, accented.length - 1), "notes.txt"));
+        assertNull(type("Relatório".getBytes(StandardCharsets.ISO_8859_1), "notes.txt"));
+        assertNull(type(new byte[]{'a', 'b', (byte) 0xC3, 'c', (byte) 0xFF, (byte) 0xFE}, "data.bin"));
+    }
+
+    private static String type(byte[] header, String filename) {
+        return FileTypeUtils.getFileType(header, header.length, filename);
+    }
+
+    private static byte[] riff(String format) {
+        byte[] header = Arrays.copyOf("RIFF".getBytes(StandardCharsets.US_ASCII), 16);
+        System.arraycopy(format.getBytes(StandardCharsets.US_ASCII), 0, header, 8, 4);
+        return header;
+    }
+
+    private static byte[] ftyp(String brand) {
+        byte[] header = new byte[16];
+        header[3] = 0x18;
+        System.arraycopy(("ftyp" + brand).getBytes(StandardCharsets.US_ASCII), 0, header, 4, 8);
+        return header;
+    }
+}
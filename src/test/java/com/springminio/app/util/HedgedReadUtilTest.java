@@ -0,0 +1,70 @@
+package com.springminio.app.util;
+
+import com.springminio.app.config.MinioConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgedReadUtilTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MinioConfig minioConfig = new MinioConfig();
+    private final HedgedReadUtil hedgedReadUtil = new HedgedReadUtil(null, minioConfig, meterRegistry);
+
+    HedgedReadUtilTest() {
+        minioConfig.getHedge().setEnabled(true);
+        minioConfig.getHedge().setSamples(64);
+        minioConfig.getHedge().setMinDelay(Duration.ofMillis(5));
+        minioConfig.getHedge().setBudget(1);
+    }
+
+    @Test
+    void slowReadIsHedgedAndTheLosingResponseDiscarded() throws Exception {
+        warmUp();
+        CompletableFuture<String> stuck = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        List<String> discarded = new CopyOnWriteArrayList<>();
+
+        String result = hedgedReadUtil.execute("getObject",
+                () -> calls.getAndIncrement() == 0 ? stuck : CompletableFuture.completedFuture("hedge"),
+                discarded::add);
+        stuck.complete("primary");
+
+        assertEquals("hedge", result);
+        assertEquals(List.of("primary"), discarded);
+        assertEquals(1, meterRegistry.get("minio.hedge.requests").tag("result", "won").counter().count());
+    }
+
+    @Test
+    void hedgesStopWhenTheBudgetIsSpent() throws Exception {
+        minioConfig.getHedge().setBudget(0);
+        warmUp();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedgedReadUtil.execute("getObject", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> "primary",
+                    CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        }, value -> { });
+
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertTrue(meterRegistry.get("minio.hedge.requests").tag("result", "denied").counter().count() > 0);
+    }
+
+    // Fill the latency ring with fast reads so the tracker knows what normal looks like
+    private void warmUp() throws Exception {
+        for (int i = 0; i < 64; i++) {
+            hedgedReadUtil.execute("getObject", () -> CompletableFuture.completedFuture("fast"), value -> { });
+        }
+    }
+}
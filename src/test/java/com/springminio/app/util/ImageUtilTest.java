@@ -0,0 +1,61 @@
+package com.springminio.app.util;
+
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.exception.FileResponseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ImageUtilTest {
+
+    private final MinioConfig minioConfig = new MinioConfig();
+    private ImageUtil imageUtil;
+
+    @BeforeEach
+    void setUp() {
+        imageUtil = new ImageUtil(minioConfig);
+        imageUtil.init();
+    }
+
+    @Test
+    void resize_KeepsAspectRatio() throws IOException {
+        byte[] variant = imageUtil.resize(new ByteArrayInputStream(png(400, 200)), 100, "jpg");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(variant));
+        assertEquals(100, image.getWidth());
+        assertEquals(50, image.getHeight());
+    }
+
+    @Test
+    void resize_NeverEnlarges() throws IOException {
+        byte[] variant = imageUtil.resize(new ByteArrayInputStream(png(40, 30)), 256, "png");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(variant));
+        assertEquals(40, image.getWidth());
+        assertEquals(30, image.getHeight());
+    }
+
+    @Test
+    void resize_RejectsTooLargeOrNonImageSources() {
+        minioConfig.getImage().setMaxSourcePixels(100);
+
+        assertThrows(FileResponseException.class,
+                () -> imageUtil.resize(new ByteArrayInputStream(png(20, 20)), 10, "jpg"));
+        assertThrows(FileResponseException.class,
+                () -> imageUtil.resize(new ByteArrayInputStream("not an image".getBytes()), 10, "jpg"));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
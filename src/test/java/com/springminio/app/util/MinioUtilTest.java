@@ -0,0 +1,68 @@
+package com.springminio.app.util;
+
+import com.springminio.app.cache.BucketRegistry;
+import com.springminio.app.cache.PresignedUrlCache;
+import com.springminio.app.config.MinioConfig;
+import com.springminio.app.load.S3Stub;
+import com.springminio.app.payload.ObjectEntry;
+import com.springminio.app.payload.ObjectListing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MinioUtilTest {
+
+    private static final String BUCKET = "listing";
+
+    private final S3Stub stub = S3Stub.start(Duration.ZERO, 0);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final MinioUtil minioUtil;
+
+    MinioUtilTest() throws Exception {
+        String endpoint = "http://127.0.0.1:" + stub.port();
+        MinioConfig minioConfig = new MinioConfig();
+        MinioClient client = MinioClient.builder().endpoint(endpoint).credentials("minioadmin", "minioadmin")
+                .region("us-east-1").build();
+        MinioAsyncClient asyncClient = MinioAsyncClient.builder().endpoint(endpoint)
+                .credentials("minioadmin", "minioadmin").region("us-east-1").build();
+        minioUtil = new MinioUtil(client, minioConfig,
+                new MultipartUploadUtil(new MinioMultipartClient(asyncClient), minioConfig),
+                new PresignedUrlCache(minioConfig), new BucketRegistry(client), executor,
+                new CompressionUtil(minioConfig), new HedgedReadUtil(null, minioConfig, new SimpleMeterRegistry()));
+        minioUtil.makeBucket(BUCKET);
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    void pagesEndingOnACommonPrefixResumeAfterTheWholePrefix() throws Exception {
+        for (String name : List.of("a.txt", "dir/1.txt", "dir/2.txt", "dir2/x.txt", "z.txt")) {
+            minioUtil.uploadObject(BUCKET, new ByteArrayInputStream(new byte[1]), 1, name, "text/plain");
+        }
+
+        List<String> names = new ArrayList<>();
+        String token = null;
+        do {
+            ObjectListing page = minioUtil.listObjects(BUCKET, null, "/", 2, token);
+            page.getObjects().stream().map(ObjectEntry::getName).forEach(names::add);
+            token = page.getNextContinuationToken();
+        } while (token != null);
+
+        assertEquals(List.of("a.txt", "dir/", "dir2/", "z.txt"), names);
+    }
+}
@@ -0,0 +1,51 @@
+package com.springminio.app.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.DeflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamCopyUtilsTest {
+
+    private static final byte[] CONTENT = "0123456789".repeat(100).getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void copyFile_CopiesTheRequestedRange() throws IOException {
+        Path file = Files.write(directory.resolve("object.bin"), CONTENT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(4, StreamCopyUtils.copyFile(file, 5, 4L, out));
+        assertEquals(CONTENT.length - 990, StreamCopyUtils.copyFile(file, 990, null, out));
+
+        assertEquals("56780123456789", out.toString(StandardCharsets.US_ASCII));
+        assertThrows(NoSuchFileException.class,
+                () -> StreamCopyUtils.copyFile(directory.resolve("missing.bin"), 0, null, out));
+    }
+
+    @Test
+    void inflate_WritesTheOriginalBytes() throws IOException {
+        byte[] deflated;
+        try (InputStream in = new DeflaterInputStream(new ByteArrayInputStream(CONTENT))) {
+            deflated = in.readAllBytes();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        StreamCopyUtils.inflate(out, inflating -> StreamCopyUtils.copy(new ByteArrayInputStream(deflated), inflating));
+
+        assertEquals(new String(CONTENT, StandardCharsets.US_ASCII), out.toString(StandardCharsets.US_ASCII));
+    }
+}